@@ -0,0 +1,62 @@
+package com.pranit.mba.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.pranit.mba.utils.CandidateTrie;
+import com.pranit.mba.utils.CountBuffer;
+
+/*
+ * AprioriPassKMap.countItemsetsPassK -> match every transaction against the Trie of Candidates of Pass 2
+ * and combine the hits in the CountBuffer, flushing it whenever it fills up, as the Mapper does for one split.
+ * The partial counts go to a Blackhole in place of the Mapper's context.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandidateCountingBenchmark extends WorkloadState {
+
+	private static final long COMBINE_BUFFER_BYTES = 16L << 20; // Default of -D mba.combine.buffer.mb
+
+	private int[][] txns;
+	private CandidateTrie trie;
+	private int[] hits;
+	private CountBuffer buffer;
+
+	@Setup
+	public void setup() {
+		Workload workload = workload();
+		txns = workload.getTransactions();
+		trie = new CandidateTrie(workload.pairCandidates(candidates));
+		hits = new int[trie.size()];
+		buffer = new CountBuffer(Math.min(COMBINE_BUFFER_BYTES, CountBuffer.bytesFor(trie.size())));
+	}
+
+	@Benchmark
+	public void countItemsetsPassK(Blackhole bh) throws IOException, InterruptedException {
+		CountBuffer.Sink sink = (idx, cnt) -> bh.consume(cnt);
+		for(int[] txn : txns) {
+			if(txn.length < 2)
+				continue;
+			int found = trie.match(txn, hits);
+			for(int i=0; i<found; i++) {
+				if(buffer.add(hits[i], 1))
+					buffer.flush(sink);
+			}
+		}
+		buffer.flush(sink);
+	}
+}
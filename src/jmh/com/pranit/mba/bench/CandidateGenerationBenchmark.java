@@ -0,0 +1,39 @@
+package com.pranit.mba.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pranit.mba.utils.AprioriAlgorithm;
+
+// AprioriAlgorithm.generateNextCandidateItemsets -> join and prune the Candidates of size 3 from the frequent pairs
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandidateGenerationBenchmark extends WorkloadState {
+
+	private ArrayList<int[]> frequentPairs;
+	private AprioriAlgorithm apriori = new AprioriAlgorithm();
+
+	@Setup
+	public void setup() {
+		frequentPairs = workload().frequentLevel(2, candidates);
+	}
+
+	@Benchmark
+	public ArrayList<int[]> generateNextCandidateItemsets() {
+		apriori.buildItemsList(frequentPairs);
+		return apriori.getNextCandidateItemsets();
+	}
+}
@@ -0,0 +1,103 @@
+package com.pranit.mba.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.io.RuleKeyWritable;
+import com.pranit.mba.rules.Rule;
+import com.pranit.mba.rules.RuleAggregatorGroupComparator;
+
+/*
+ * Raw comparators of the shuffle, on serialized keys as the framework hands them over:
+ * sortRuleKeys     RuleKeyWritable.Comparator, the sort comparator of the Rule Aggregation job
+ * groupRuleKeys    RuleAggregatorGroupComparator over the sorted keys, as the reducer splits them into groups
+ * sortItemsets     ItemsetWritable.Comparator, the sort comparator of the item-set counting jobs
+ * The keys are those of the Rules mined from the frequent item-sets and of the Candidates of Pass 2, in random order.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComparatorBenchmark extends WorkloadState {
+
+	private WritableComparator sortComparator = new RuleKeyWritable.Comparator();
+	private WritableComparator groupComparator = new RuleAggregatorGroupComparator();
+	private WritableComparator itemsetComparator = new ItemsetWritable.Comparator();
+	private byte[][] ruleKeys;
+	private byte[][] sortedRuleKeys;
+	private byte[][] itemsetKeys;
+
+	@Setup
+	public void setup() {
+		Workload workload = workload();
+		List<Rule> rules = workload.rules(candidates, 0.0);
+		Collections.shuffle(rules, new Random(42));
+		ruleKeys = new byte[rules.size()][];
+		RuleKeyWritable key = new RuleKeyWritable();
+		for(int i=0; i<ruleKeys.length; i++) {
+			key.set(rules.get(i).getConsequent(), rules.get(i).getLift());
+			ruleKeys[i] = serialize(key);
+		}
+		sortedRuleKeys = sortRuleKeys();
+		List<int[]> pairs = workload.pairCandidates(candidates);
+		Collections.shuffle(pairs, new Random(42));
+		itemsetKeys = new byte[pairs.size()][];
+		for(int i=0; i<itemsetKeys.length; i++)
+			itemsetKeys[i] = serialize(new ItemsetWritable(pairs.get(i)));
+	}
+
+	@Benchmark
+	public byte[][] sortRuleKeys() {
+		byte[][] keys = ruleKeys.clone();
+		Arrays.sort(keys, (b1, b2) -> sortComparator.compare(b1, 0, b1.length, b2, 0, b2.length));
+		return keys;
+	}
+
+	@Benchmark
+	public int groupRuleKeys() {
+		int groups = sortedRuleKeys.length > 0 ? 1 : 0;
+		for(int i=1; i<sortedRuleKeys.length; i++) {
+			byte[] b1 = sortedRuleKeys[i-1], b2 = sortedRuleKeys[i];
+			if(groupComparator.compare(b1, 0, b1.length, b2, 0, b2.length) != 0)
+				groups++;
+		}
+		return groups;
+	}
+
+	@Benchmark
+	public byte[][] sortItemsets() {
+		byte[][] keys = itemsetKeys.clone();
+		Arrays.sort(keys, (b1, b2) -> itemsetComparator.compare(b1, 0, b1.length, b2, 0, b2.length));
+		return keys;
+	}
+
+	private static byte[] serialize(Writable key) {
+		DataOutputBuffer out = new DataOutputBuffer();
+		try {
+			key.write(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return Arrays.copyOf(out.getData(), out.getLength());
+	}
+}
@@ -0,0 +1,53 @@
+package com.pranit.mba.bench;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.pranit.mba.rules.Rule;
+import com.pranit.mba.rules.RuleAggregator;
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * RuleAggregatorReduce -> find the redundant Rules of every group of Rules sharing a consequent,
+ * each group sorted by Lift in descending order as the reducer receives it.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedundantRulesBenchmark extends WorkloadState {
+
+	private List<List<Rule>> groups = new ArrayList<List<Rule>>();
+
+	@Setup
+	public void setup() {
+		TreeMap<int[], List<Rule>> byConsequent = new TreeMap<int[], List<Rule>>(Itemsets::compare);
+		for(Rule rule : workload().rules(candidates, 0.0))
+			byConsequent.computeIfAbsent(rule.getConsequent(), c -> new ArrayList<Rule>()).add(rule);
+		for(List<Rule> group : byConsequent.values()) {
+			group.sort(Comparator.comparingDouble(Rule::getLift).reversed());
+			groups.add(group);
+		}
+	}
+
+	@Benchmark
+	public void findRedundantRules(Blackhole bh) {
+		for(List<Rule> group : groups)
+			bh.consume(RuleAggregator.findRedundantRules(group));
+	}
+}
@@ -0,0 +1,59 @@
+package com.pranit.mba.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.rules.RuleGenerator;
+
+/*
+ * AssociationRuleMiningReduce.reduce -> generate and validate the Rules of every frequent item-set
+ * of more than one item, looking up the Supports from the in-memory index the reducer loads.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleGenerationBenchmark extends WorkloadState {
+
+	@Param({ "0.2" })
+	public double minConfidence;
+
+	private ArrayList<int[]> itemsets = new ArrayList<int[]>();
+	private ArrayList<Integer> counts = new ArrayList<Integer>();
+	private RuleGenerator generator;
+
+	@Setup
+	public void setup() {
+		Workload workload = workload();
+		HashMap<ItemsetWritable, Integer> frequentItemsets = workload.frequentItemsets(candidates);
+		for(Entry<ItemsetWritable, Integer> pair : frequentItemsets.entrySet()) {
+			if(pair.getKey().size() > 1) {
+				itemsets.add(pair.getKey().get());
+				counts.add(pair.getValue());
+			}
+		}
+		generator = workload.ruleGenerator(frequentItemsets, minConfidence);
+	}
+
+	@Benchmark
+	public void reduce(Blackhole bh) {
+		for(int i=0; i<itemsets.size(); i++)
+			bh.consume(generator.generate(itemsets.get(i), counts.get(i)));
+	}
+}
@@ -0,0 +1,225 @@
+package com.pranit.mba.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+
+import com.pranit.mba.eclat.Eclat;
+import com.pranit.mba.eclat.TidBitmap;
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.rules.Rule;
+import com.pranit.mba.rules.RuleEvaluator;
+import com.pranit.mba.rules.RuleGenerator;
+import com.pranit.mba.utils.HashSupportIndex;
+import com.pranit.mba.utils.ItemDictionary;
+
+/*
+ * Encoded transactions the benchmarks run on, either a bundled data-set or synthetic baskets.
+ *
+ * groceries:  dataset/groceries.csv, comma separated
+ * mba:        dataset/MBA.txt, space separated
+ * synthetic-<itemCount>x<basketLength>:  10000 baskets of about basketLength items drawn from itemCount items
+ *                                        with Zipf like popularity, e.g. synthetic-1000x10
+ *
+ * Item IDs are assigned by an ItemDictionary of all the items, so ID 0 is the most frequent item as in the jobs.
+ * The directory of the data-sets can be changed with -Dmba.dataset.dir=<dir path>.
+ */
+
+public class Workload {
+
+	private static final int SYNTHETIC_TRANSACTIONS = 10000;
+	private static final int MAX_LENGTH = 4; // Largest item-sets mined for the frequent item-sets of the benchmarks
+
+	private int[][] txns;
+	private int itemCount;
+	private HashMap<ItemsetWritable, Integer> itemsets; // Item-sets of up to MAX_LENGTH items mined at a low Support, built lazily
+
+	private Workload(int[][] txns, int itemCount) {
+		this.txns = txns;
+		this.itemCount = itemCount;
+	}
+
+	public static Workload of(String dataset) {
+		switch(dataset) {
+		case "groceries":
+			return read("groceries.csv", ",");
+		case "mba":
+			return read("MBA.txt", " ");
+		default:
+			String[] shape = dataset.startsWith("synthetic-") ? dataset.substring(10).split("x") : new String[0];
+			if(shape.length != 2 || !shape[0].matches("[1-9][0-9]*") || !shape[1].matches("[1-9][0-9]*"))
+				throw new IllegalArgumentException("Unknown data-set "+dataset+"! Use groceries, mba or synthetic-<items>x<basketLength>");
+			return synthetic(Integer.parseInt(shape[0]), Integer.parseInt(shape[1]), 42);
+		}
+	}
+
+	public int[][] getTransactions() {
+		return txns;
+	}
+
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/*
+	 * Apriori Candidates of Pass 2: all the pairs of the most frequent items, as many items as give about count pairs.
+	 * Ordered as AprioriAlgorithm generates them.
+	 */
+
+	public ArrayList<int[]> pairCandidates(int count) {
+		int n = Math.min(itemCount, (int)Math.ceil((1 + Math.sqrt(1 + 8.0*count)) / 2));
+		ArrayList<int[]> candidates = new ArrayList<int[]>();
+		for(int i=0; i<n; i++) {
+			for(int j=i+1; j<n; j++)
+				candidates.add(new int[] { i, j });
+		}
+		return candidates;
+	}
+
+	// The count most frequent item-sets of k items, fewer if the data-set has fewer
+
+	public ArrayList<int[]> frequentLevel(int k, int count) {
+		ArrayList<Entry<ItemsetWritable, Integer>> level = new ArrayList<Entry<ItemsetWritable, Integer>>();
+		for(Entry<ItemsetWritable, Integer> pair : mineItemsets().entrySet()) {
+			if(pair.getKey().size() == k)
+				level.add(pair);
+		}
+		level.sort((e1, e2) -> (-1) * e1.getValue().compareTo(e2.getValue()));
+		ArrayList<int[]> result = new ArrayList<int[]>();
+		for(int i=0; i<level.size() && i<count; i++)
+			result.add(level.get(i).getKey().get());
+		return result;
+	}
+
+	/*
+	 * Frequent item-sets with their Support Counts at the highest threshold that yields at least count item-sets
+	 * of more than one item, or all that were mined. Closed under subsets like the output of the mining jobs.
+	 */
+
+	public HashMap<ItemsetWritable, Integer> frequentItemsets(int count) {
+		HashMap<ItemsetWritable, Integer> mined = mineItemsets();
+		int[] counts = mined.entrySet().stream().filter(e -> e.getKey().size() > 1).mapToInt(Entry::getValue).toArray();
+		Arrays.sort(counts);
+		int threshold = counts.length == 0 ? 0 : counts[Math.max(0, counts.length - count)];
+		HashMap<ItemsetWritable, Integer> result = new HashMap<ItemsetWritable, Integer>();
+		for(Entry<ItemsetWritable, Integer> pair : mined.entrySet()) {
+			if(pair.getValue() >= threshold)
+				result.put(pair.getKey(), pair.getValue());
+		}
+		return result;
+	}
+
+	// Rule Generator over the index of the given frequent item-sets, as the Rule Mining reducer builds it
+
+	public RuleGenerator ruleGenerator(HashMap<ItemsetWritable, Integer> frequentItemsets, double minConfidence) {
+		HashSupportIndex index = new HashSupportIndex();
+		for(Entry<ItemsetWritable, Integer> pair : frequentItemsets.entrySet())
+			index.put(pair.getKey().get(), pair.getValue());
+		return new RuleGenerator(new RuleEvaluator(minConfidence, txns.length, false), index);
+	}
+
+	// All the Rules of the frequent item-sets of frequentItemsets(count)
+
+	public ArrayList<Rule> rules(int count, double minConfidence) {
+		HashMap<ItemsetWritable, Integer> frequentItemsets = frequentItemsets(count);
+		RuleGenerator generator = ruleGenerator(frequentItemsets, minConfidence);
+		ArrayList<Rule> rules = new ArrayList<Rule>();
+		for(Entry<ItemsetWritable, Integer> pair : frequentItemsets.entrySet()) {
+			if(pair.getKey().size() > 1)
+				rules.addAll(generator.generate(pair.getKey().get(), pair.getValue()));
+		}
+		return rules;
+	}
+
+	private HashMap<ItemsetWritable, Integer> mineItemsets() {
+		if(itemsets != null)
+			return itemsets;
+		TidBitmap[] tidLists = new TidBitmap[itemCount];
+		int[] items = new int[itemCount];
+		for(int itm=0; itm<itemCount; itm++) {
+			items[itm] = itm;
+			tidLists[itm] = new TidBitmap();
+		}
+		for(int tid=0; tid<txns.length; tid++) {
+			for(int itm : txns[tid])
+				tidLists[itm].add(tid);
+		}
+		HashMap<ItemsetWritable, Integer> mined = new HashMap<ItemsetWritable, Integer>();
+		int minSupportCount = Math.max(2, txns.length / 2000);
+		try {
+			new Eclat(minSupportCount, MAX_LENGTH, ForkJoinPool.commonPool()).mine(items, tidLists, (itemset, cnt) -> mined.put(new ItemsetWritable(itemset), cnt));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+		itemsets = mined;
+		return itemsets;
+	}
+
+	private static Workload read(String fileName, String delimiter) {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(Paths.get(System.getProperty("mba.dataset.dir", "dataset"), fileName), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		HashMap<String, Integer> counts = new HashMap<String, Integer>();
+		for(String line : lines) {
+			StringTokenizer items = new StringTokenizer(line, delimiter);
+			while(items.hasMoreTokens()) {
+				String itm = ItemDictionary.normalize(items.nextToken());
+				if(!itm.isEmpty())
+					counts.merge(itm, 1, Integer::sum);
+			}
+		}
+		ItemDictionary dictionary = ItemDictionary.build(counts);
+		int[][] txns = new int[lines.size()][];
+		for(int i=0; i<txns.length; i++)
+			txns[i] = dictionary.encode(lines.get(i), delimiter);
+		return new Workload(txns, dictionary.size());
+	}
+
+	/*
+	 * Baskets whose lengths are spread evenly around basketLength, filled with items drawn with probability
+	 * proportional to 1/(rank+1), so the lower IDs are the frequent items as with a real dictionary.
+	 */
+
+	private static Workload synthetic(int itemCount, int basketLength, long seed) {
+		Random random = new Random(seed);
+		double[] cumulative = new double[itemCount];
+		double total = 0;
+		for(int i=0; i<itemCount; i++) {
+			total += 1.0 / (i+1);
+			cumulative[i] = total;
+		}
+		int[][] txns = new int[SYNTHETIC_TRANSACTIONS][];
+		for(int t=0; t<txns.length; t++) {
+			int length = Math.min(itemCount, 1 + random.nextInt(2*basketLength - 1));
+			int[] basket = new int[length];
+			int n = 0;
+			while(n < length) {
+				int pos = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+				int itm = pos >= 0 ? pos : Math.min(itemCount-1, -pos-1);
+				boolean seen = false;
+				for(int i=0; !seen && i<n; i++)
+					seen = basket[i] == itm;
+				if(!seen)
+					basket[n++] = itm;
+			}
+			Arrays.sort(basket);
+			txns[t] = basket;
+		}
+		return new Workload(txns, itemCount);
+	}
+}
@@ -0,0 +1,36 @@
+package com.pranit.mba.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * Parameters shared by all the benchmarks:
+ * dataset     groceries, mba or synthetic-<items>x<basketLength>, see Workload
+ * candidates  number of item-sets the benchmarked step works on, e.g. Candidates counted or frequent item-sets mined for Rules
+ *
+ * The item count and average basket length of the synthetic data-sets are part of the dataset value rather than
+ * parameters of their own, as JMH runs every combination of the parameters and the bundled data-sets would be
+ * benchmarked again for each shape. The defaults sweep items over 100, 1000, 10000 and basketLength over 5, 10, 20.
+ * Both can be overridden from the command line, e.g. -p dataset=synthetic-100x5,synthetic-50000x40
+ */
+
+@State(Scope.Benchmark)
+public abstract class WorkloadState {
+
+	@Param({ "groceries", "mba", "synthetic" })
+	public String dataset;
+
+	@Param({ "1000" })
+	public int items;
+
+	@Param({ "10" })
+	public int basketLength;
+
+	@Param({ "1000", "10000" })
+	public int candidates;
+
+	protected Workload workload() {
+		return Workload.of(dataset);
+	}
+}
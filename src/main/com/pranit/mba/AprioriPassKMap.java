@@ -1,91 +1,150 @@
 package com.pranit.mba;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.StringTokenizer;
+import java.util.Arrays;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
-import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 
-import com.pranit.mba.utils.AprioriAlgorithm;
-import com.pranit.mba.utils.Utilities;
+import com.pranit.mba.io.CandidateFile;
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.io.TransactionWritable;
+import com.pranit.mba.utils.CandidateTrie;
+import com.pranit.mba.utils.CountBuffer;
 
 /*
  * K pass Apriori MapReduce
- * Mapper for each Pass i <= 1 to K, would emit a <itemset, 1> pair 
- * for each generated candidate item-set of size i ( > 1) from frequent item-set
- * of previous pass i-1 across all transactions.
- * Only for Pass 1 we simply emit <item, 1> pair and do nothing else.
+ * Mapper for each Pass i <= 2 to K, counts each generated candidate item-set of size i
+ * from frequent item-set of previous pass i-1 across all transactions.
+ * Counts are combined in the Mapper in a bounded buffer keyed by candidate index
+ * and emitted as <itemset, partial count> pairs whenever the buffer fills up and in cleanup.
+ * Pass 1 is covered by the Item Dictionary job (Pass 0) which counts the single items.
+ * Transactions are read from the binary transaction cache as sorted item-sets of IDs, already encoded by the Item Dictionary.
+ * Candidates are generated once by the Driver and shipped to every Mapper through the distributed cache as a CandidateFile.
+ * They are loaded once into a prefix Trie, so each transaction walks only the subsets it contains.
+ * 
+ * With trimming enabled the Mapper also writes the transactions reduced for Pass i+1 to the named output "trimmed".
+ * An item of a transaction can be part of a frequent item-set of size i+1 contained in it only if it belongs to
+ * at least i of the candidates of size i found in the transaction, since all i+1 subsets of size i of a frequent
+ * item-set are frequent. Other items are dropped and so are transactions left with less than i+1 items.
  */
 
-public class AprioriPassKMap extends Mapper<LongWritable, Text, Text, IntWritable> {
+public class AprioriPassKMap extends Mapper<NullWritable, TransactionWritable, ItemsetWritable, IntWritable> {
 
-	private Text item = new Text();
-	private final static IntWritable one = new IntWritable(1);
-	private AprioriAlgorithm apriori = new AprioriAlgorithm();
-	private ArrayList<String> candidateList; // Store the candidate list generated for Pass i
-	private String delimiter;
+	private ItemsetWritable item = new ItemsetWritable();
+	private IntWritable count = new IntWritable();
+	private CandidateTrie candidates; // Store the candidate list generated for Pass i
+	private int[] hits; // Indices of the candidates found in a transaction
+	private CountBuffer buffer; // Partial counts of the candidates keyed by index
 	private int pass;
+	private MultipleOutputs<ItemsetWritable, IntWritable> trimmed; // null unless trimming is enabled
+	private TransactionWritable txn_out = new TransactionWritable();
+	private int[] occurrences = new int[0]; // Number of candidates found in the transaction holding each of it's items
+	private Counter scanned; // Looked up once, it's incremented for every transaction
 	
 	@Override
 	protected void setup(Context context) throws IOException {
 		Configuration conf = context.getConfiguration();
-		pass = conf.getInt("APRIORI_PASS", 1);
-		delimiter = conf.get("DELIMITER");
-		String savedStatePath = conf.get("SAVED_STATE_PATH");
-		if(pass > 1)  { // Fetch the candidate list
-			Utilities util = new Utilities(); 
-			try {
-				apriori = util.deserialize(savedStatePath); // Load the saved object state into current object
-			} catch (ClassNotFoundException e) {
-				e.printStackTrace();
-			}
-			candidateList = apriori.getNextCandidateItemsets();
-			util.serialize(savedStatePath, apriori); // Save the current object state
-		}
+		pass = conf.getInt("APRIORI_PASS", 2);
+		// Load the candidate list the Driver generated for this pass
+		long start = System.currentTimeMillis();
+		candidates = new CandidateTrie(CandidateFile.read(localCandidates(conf)));
+		context.getCounter(MbaCounters.STATE_READ_MILLIS).increment(System.currentTimeMillis() - start);
+		context.getCounter(MbaCounters.CANDIDATE_MAPPERS).increment(1);
+		context.getCounter(MbaCounters.CANDIDATES_LOADED).increment(candidates.size());
+		scanned = context.getCounter(MbaCounters.TRANSACTIONS_SCANNED);
+		hits = new int[candidates.size()];
+		// Never larger than the smallest table holding every candidate without a flush
+		buffer = new CountBuffer(Math.min(conf.getLong("COMBINE_BUFFER_BYTES", 16L << 20), CountBuffer.bytesFor(candidates.size())));
+		if(conf.getBoolean("TRIM_TRANSACTIONS", false))
+			trimmed = new MultipleOutputs<ItemsetWritable, IntWritable>(context);
+	}
+	
+	/*
+	 * The distributed cache links the Candidates into the working directory of the task under their link name.
+	 * If they are not there the file is copied from HDFS to the local File System instead.
+	 */
+	
+	private File localCandidates(Configuration conf) throws IOException {
+		File file = new File(conf.get("CANDIDATES_LINK"));
+		if(file.exists())
+			return file;
+		file = File.createTempFile("candidates", null);
+		file.deleteOnExit();
+		FileSystem.get(conf).copyToLocalFile(new Path(conf.get("CANDIDATES_PATH")), new Path(file.getAbsolutePath()));
+		return file;
 	}
 	
 	@Override
-	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-		HashSet<String> txnItemSet = new HashSet<String>();
-		String txn = value.toString();
-		StringTokenizer items = new StringTokenizer(txn, delimiter);
-		while(items.hasMoreTokens()) {
-			String itm = items.nextToken();
-			itm = itm.trim().replaceAll(" +", " ");
-			if(pass == 1) {
-				item.set(itm);
-				context.write(item, one); // Emit <item, 1> pair
-			}
-			else
-				txnItemSet.add(itm);
-		}
-		if(pass == 1)
+	protected void map(NullWritable key, TransactionWritable value, Context context) throws IOException, InterruptedException {
+		int[] txn = value.get();
+		if(txn.length < pass) // Too few frequent items to contain any candidate item-set
 			return;
-		countItemsetsPassK(context, txnItemSet);
+		scanned.increment(1);
+		countItemsetsPassK(context, txn);
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		flush(context);
+		if(trimmed != null)
+			trimmed.close();
+	}
+	
+	// Count those candidate item-sets which occur in each input transaction record
+	
+	private void countItemsetsPassK(Context context, int[] txn) throws IOException, InterruptedException {
+		int found = candidates.match(txn, hits);
+		for(int i=0; i<found; i++) {
+			if(buffer.add(hits[i], 1))
+				flush(context);
+		}
+		if(trimmed != null && found > pass)
+			trimTransaction(context, txn, found);
 	}
 	
-	// Emit <itemset, 1> pair for those candidate item-sets which occur in each input transaction record
+	// Write the transaction reduced to the items which may still be part of a frequent item-set in the next Pass
 	
-	private void countItemsetsPassK(Context context, HashSet<String> txnItemSet) throws IOException, InterruptedException {
-		
-		for(String itemset : candidateList) {
-			String[] items = itemset.split(",");
-			boolean found = true;
-			for(String itm : items) {			
-				if(!txnItemSet.contains(itm)) {
-					found = false;
-					break;
-				}
-			}
-			if(!found) // Discard this item-set if any one of it's item is not found in this transaction record
-				continue;
-			item.set(itemset);
-			context.write(item, one); // Emit <itemset, 1> pair
+	private void trimTransaction(Context context, int[] txn, int found) throws IOException, InterruptedException {
+		if(occurrences.length < txn.length)
+			occurrences = new int[txn.length];
+		Arrays.fill(occurrences, 0, txn.length, 0);
+		for(int i=0; i<found; i++) {
+			for(int itm : candidates.get(hits[i]))
+				occurrences[Arrays.binarySearch(txn, itm)]++;
 		}
+		int kept = 0;
+		for(int j=0; j<txn.length; j++) {
+			if(occurrences[j] >= pass)
+				kept++;
+		}
+		if(kept <= pass) // Too few items left to contain a candidate of the next Pass
+			return;
+		int[] reduced = new int[kept];
+		kept = 0;
+		for(int j=0; j<txn.length; j++) {
+			if(occurrences[j] >= pass)
+				reduced[kept++] = txn[j];
+		}
+		txn_out.set(reduced);
+		trimmed.write("trimmed", NullWritable.get(), txn_out, "transactions/part");
+		context.getCounter(MbaCounters.TRIMMED_TRANSACTIONS).increment(1);
+	}
+	
+	// Emit <itemset, partial count> pair for every candidate in the buffer
+	
+	private void flush(Context context) throws IOException, InterruptedException {
+		buffer.flush((idx, cnt) -> {
+			item.set(candidates.get(idx));
+			count.set(cnt);
+			context.write(item, count);
+		});
 	}
-}
\ No newline at end of file
+}
@@ -2,64 +2,80 @@ package com.pranit.mba;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 
-import com.pranit.mba.utils.AprioriAlgorithm;
-import com.pranit.mba.utils.Utilities;
+import com.pranit.mba.io.AprioriStateStore;
+import com.pranit.mba.io.ItemsetLevel;
+import com.pranit.mba.io.ItemsetWritable;
 
-public class AprioriPassKReduce extends Reducer<Text, IntWritable, Text, IntWritable> {
+/*
+ * Sum up the counts of each candidate item-set and keep only the frequent ones.
+ * The frequent item-sets of Pass i are written both to HDFS and as a part of level i of the AprioriStateStore.
+ * A Pass may run any number of Reducers, each writing the part of it's own partition to <output-pass-i>/state
+ * through the output of the task, so only the parts of successful attempts are kept and the Driver merges them.
+ * When the mining state is kept the infrequent Candidates are written to the named output "border",
+ * the Candidates that no transaction contains never reach the reducer and the Driver adds them with count 0.
+ */
+
+public class AprioriPassKReduce extends Reducer<ItemsetWritable, IntWritable, ItemsetWritable, IntWritable> {
 	
 	private IntWritable count = new IntWritable();
-	private AprioriAlgorithm apriori = new AprioriAlgorithm();
-	private Utilities util = new Utilities();
-	private ArrayList<String> frequentList; // Used only for Pass 1
+	private ArrayList<int[]> frequentList = new ArrayList<int[]>();
+	private int[] frequentCounts = new int[1024];
 	private int minSupportCount;
 	private int pass;
-	private String savedStatePath;
+	private AprioriStateStore store;
+	private MultipleOutputs<ItemsetWritable, IntWritable> border; // null unless the mining state is kept
 
 	@Override
 	protected void setup(Context context) throws IOException {
 		Configuration conf = context.getConfiguration();
-		pass = conf.getInt("APRIORI_PASS", 1);
-		savedStatePath = conf.get("SAVED_STATE_PATH");
-		try {
-			apriori = util.deserialize(savedStatePath); // Load the saved object state into current object
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
+		pass = conf.getInt("APRIORI_PASS", 2);
+		store = new AprioriStateStore(conf);
 		minSupportCount = conf.getInt("MIN_SUPPORT_COUNT", 1);
-		if(pass == 1)
-			frequentList = new ArrayList<String>(); 
+		if(conf.getBoolean("WRITE_BORDER", false))
+			border = new MultipleOutputs<ItemsetWritable, IntWritable>(context);
 	}
 	
 	@Override
-	protected void reduce(Text key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
+	protected void reduce(ItemsetWritable key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
 		int sum = 0;
 		for(IntWritable value : values)
 			sum += value.get();
 		// Prune by threshold Support Count
-		if(sum < minSupportCount) // Not frequent; Discard
+		if(sum < minSupportCount) { // Not frequent; Discard or keep in the negative border
+			context.getCounter(MbaCounters.INFREQUENT_CANDIDATES).increment(1);
+			if(border != null) {
+				count.set(sum);
+				border.write("border", key, count, "border/part");
+			}
 			return;
-		if(pass == 1) // Build the frequent item list for Pass 1
-			frequentList.add(key.toString());
-		apriori.mapPut(key.toString(), sum); // Store <frequent_itemset, count> pair in Map
+		}
+		// Store <frequent_itemset, count> pair
+		if(frequentList.size() == frequentCounts.length)
+			frequentCounts = Arrays.copyOf(frequentCounts, frequentCounts.length*2);
+		frequentCounts[frequentList.size()] = sum;
+		frequentList.add(key.get());
 		count.set(sum);	
 		context.write(key, count); // Write to HDFS <frequent_itemset, count> as output of Pass i
+		context.getCounter(MbaCounters.FREQUENT_ITEMSETS).increment(1);
 	}
 	
 	@Override
-	protected void cleanup(Context context) throws IOException {
-		if(pass == 1)
-			apriori.buildItemsList(frequentList); // Build the frequent item list for Pass 1
-		/*
-		 * Filter the Candidate list of current pass by threshold support count 
-		 * to get the Frequent list for the next pass ready.
-		 */
-		apriori.nextFrequentItemsets();
-		util.serialize(savedStatePath, apriori); // Save the current object state
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		if(border != null)
+			border.close();
+		// Save the Frequent list of this pass for building the Candidate list of the next pass
+		long start = System.currentTimeMillis();
+		Path part = new Path(FileOutputFormat.getWorkOutputPath(context), "state/" + AprioriStateStore.partName(pass, context.getTaskAttemptID().getTaskID().getId()));
+		store.writeLevel(part, ItemsetLevel.of(pass, frequentList, frequentCounts));
+		context.getCounter(MbaCounters.STATE_WRITE_MILLIS).increment(System.currentTimeMillis() - start);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.pranit.mba;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.StringTokenizer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+import com.pranit.mba.utils.ItemDictionary;
+
+/*
+ * Pass 0 -> Build the Item Dictionary
+ * Mapper counts each distinct item of every transaction,
+ * so an item repeated within a transaction is counted once like any other item-set.
+ * Counts are combined in the Mapper and emitted as <item, partial count> pairs in cleanup,
+ * or earlier whenever the estimated memory of the table exceeds the buffer budget.
+ * Every line read is counted as a transaction, which gives the Driver the total count of transactions.
+ * The frequent items counted here are both the frequent item-sets of Pass 1
+ * and the items that are assigned dense IDs for all the later Passes.
+ * For sampling based mining the Mapper also writes a random sample of the transactions to the named output "sample".
+ */
+
+public class ItemDictionaryMap extends Mapper<LongWritable, Text, Text, IntWritable> {
+
+	private Text item = new Text();
+	private IntWritable count = new IntWritable();
+	private String delimiter;
+	private HashSet<String> seen = new HashSet<String>(); // Items already counted for the current transaction
+	private HashMap<String, int[]> counts = new HashMap<String, int[]>(); // Partial count of each item
+	private long bufferBytes; // Estimated memory held by the partial counts
+	private long maxBufferBytes;
+	private MultipleOutputs<Text, IntWritable> sample; // null unless sampling is enabled
+	private double sampleFraction;
+	private Random random;
+	
+	@Override
+	protected void setup(Context context) {
+		Configuration conf = context.getConfiguration();
+		delimiter = conf.get("DELIMITER");
+		maxBufferBytes = conf.getLong("COMBINE_BUFFER_BYTES", 16L << 20);
+		sampleFraction = conf.getDouble("SAMPLE_FRACTION", 0);
+		if(sampleFraction > 0) {
+			sample = new MultipleOutputs<Text, IntWritable>(context);
+			// Same sample on every run over the same input splits
+			random = new Random(conf.getLong("SAMPLE_SEED", 0) * 31 + context.getTaskAttemptID().getTaskID().getId());
+		}
+	}
+	
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		context.getCounter(MbaCounters.TRANSACTIONS).increment(1);
+		if(sample != null && random.nextDouble() < sampleFraction)
+			sample.write("sample", NullWritable.get(), value, "sample/part");
+		StringTokenizer items = new StringTokenizer(value.toString(), delimiter);
+		while(items.hasMoreTokens()) {
+			String itm = ItemDictionary.normalize(items.nextToken());
+			if(itm.isEmpty() || !seen.add(itm))
+				continue;
+			int[] cnt = counts.get(itm);
+			if(cnt == null) {
+				counts.put(itm, new int[] { 1 });
+				bufferBytes += 96 + 2*itm.length(); // Entry, key String with it's chars and the counter
+			}
+			else
+				cnt[0]++;
+		}
+		seen.clear();
+		if(bufferBytes >= maxBufferBytes)
+			flush(context);
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		flush(context);
+		if(sample != null)
+			sample.close();
+	}
+	
+	// Emit <item, partial count> pair for every item in the table
+	
+	private void flush(Context context) throws IOException, InterruptedException {
+		for(Entry<String, int[]> pair : counts.entrySet()) {
+			item.set(pair.getKey());
+			count.set(pair.getValue()[0]);
+			context.write(item, count);
+		}
+		counts.clear();
+		bufferBytes = 0;
+	}
+}
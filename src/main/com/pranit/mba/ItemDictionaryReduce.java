@@ -0,0 +1,37 @@
+package com.pranit.mba;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/*
+ * Write <item, count> pairs of the frequent items only; the Driver builds the Item Dictionary from this output.
+ * When the count of transactions is not known before Pass 0 every item is written and the Driver prunes them.
+ */
+
+public class ItemDictionaryReduce extends Reducer<Text, IntWritable, Text, IntWritable> {
+	
+	private IntWritable count = new IntWritable();
+	private int minSupportCount;
+	
+	@Override
+	protected void setup(Context context) {
+		Configuration conf = context.getConfiguration();
+		minSupportCount = conf.getInt("MIN_SUPPORT_COUNT", 0);
+	}
+	
+	@Override
+	protected void reduce(Text key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
+		int sum = 0;
+		for(IntWritable value : values)
+			sum += value.get();
+		// Prune by threshold Support Count
+		if(sum < minSupportCount) // Not frequent; Discard
+			return;
+		count.set(sum);	
+		context.write(key, count);
+	}
+}
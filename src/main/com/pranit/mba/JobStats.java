@@ -0,0 +1,69 @@
+package com.pranit.mba;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Map;
+
+/*
+ * Cost of a Job run by the Driver: wall time, bytes shuffled to the Reducers and peak heap of the Driver's JVM
+ * while the Job ran. With the local job runner the tasks run in the Driver's JVM, so the peak heap covers them too.
+ * Counters holds the values of the MbaCounters and of the main framework counters by name.
+ */
+
+public class JobStats {
+
+	private String name;
+	private long wallMillis;
+	private long shuffleBytes;
+	private long peakHeapBytes;
+	private Map<String, Long> counters;
+
+	public JobStats(String name, long wallMillis, long shuffleBytes, long peakHeapBytes, Map<String, Long> counters) {
+		this.name = name;
+		this.wallMillis = wallMillis;
+		this.shuffleBytes = shuffleBytes;
+		this.peakHeapBytes = peakHeapBytes;
+		this.counters = counters;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getWallMillis() {
+		return wallMillis;
+	}
+
+	public long getShuffleBytes() {
+		return shuffleBytes;
+	}
+
+	public long getPeakHeapBytes() {
+		return peakHeapBytes;
+	}
+
+	public Map<String, Long> getCounters() {
+		return counters;
+	}
+
+	// Start measuring the peak heap from the current usage
+
+	public static void resetPeakHeap() {
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP)
+				pool.resetPeakUsage();
+		}
+	}
+
+	// Sum of the peak usage of every heap pool since the last reset, the pools may have peaked at different times
+
+	public static long getPeakHeap() {
+		long peak = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		}
+		return peak;
+	}
+}
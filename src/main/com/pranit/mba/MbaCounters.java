@@ -0,0 +1,20 @@
+package com.pranit.mba;
+
+// Counters reported by the Jobs of Market Basket Analysis and read back by the Driver
+
+public enum MbaCounters {
+	TRANSACTIONS, // Transactions read by Pass 0, one per line of the input data-set
+	TRIMMED_TRANSACTIONS, // Transactions written by a Pass of Apriori for the next one when trimming is enabled
+	CANDIDATE_MAPPERS, // Mappers of a Pass of Apriori, each loading all the Candidates
+	CANDIDATES_LOADED, // Candidates loaded by the Mappers of a Pass of Apriori, summed over the Mappers
+	TRANSACTIONS_SCANNED, // Transactions long enough to hold a Candidate, matched against the Candidates
+	STATE_READ_MILLIS, // Time the Mappers spent loading the Candidates of the Pass generated by the Driver
+	STATE_WRITE_MILLIS, // Time the Reducers spent writing the frequent item-sets of the Pass to the state
+	FREQUENT_ITEMSETS, // Candidates reaching the threshold Support Count, written by the Reducers
+	INFREQUENT_CANDIDATES, // Candidates pruned by the threshold Support Count
+	RULES_VALID, // Rules passing all the checks, written by the Rule Mining job
+	RULES_PRUNED_CONFIDENCE, // Rules failing the threshold Confidence, which also stops their consequent from growing
+	RULES_PRUNED_LIFT, // Confident Rules dropped by the Lift filter
+	RULES_PRUNED_REVERSE, // Confident Rules dropped in favour of their reverse Rule
+	RULES_REDUNDANT // Rules dropped by the aggregation as redundant
+}
@@ -1,30 +1,75 @@
 package com.pranit.mba;
 
-import java.io.File;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Paths;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobCounter;
+import org.apache.hadoop.mapreduce.TaskCounter;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 
+import com.pranit.mba.eclat.EclatMap;
+import com.pranit.mba.eclat.EclatReduce;
+import com.pranit.mba.eclat.SplitTidsWritable;
+import com.pranit.mba.fpgrowth.FPGrowthMap;
+import com.pranit.mba.fpgrowth.FPGrowth;
+import com.pranit.mba.fpgrowth.FPGrowthReduce;
+import com.pranit.mba.fpgrowth.FPTree;
+import com.pranit.mba.io.AprioriStateStore;
+import com.pranit.mba.io.CandidateFile;
+import com.pranit.mba.io.ItemsetLevel;
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.io.MappedSupportIndex;
+import com.pranit.mba.io.MiningState;
+import com.pranit.mba.io.RuleKeyWritable;
+import com.pranit.mba.io.TransactionWritable;
+import com.pranit.mba.local.LocalEngine;
+import com.pranit.mba.local.StreamEngine;
 import com.pranit.mba.rules.*;
+import com.pranit.mba.son.SONCandidateMap;
+import com.pranit.mba.son.SONCountMap;
+import com.pranit.mba.son.SONCountReduce;
 import com.pranit.mba.utils.AprioriAlgorithm;
+import com.pranit.mba.utils.ItemDictionary;
+import com.pranit.mba.utils.Itemsets;
 import com.pranit.mba.utils.Utilities;
 
 // Driver program for Market Basket Analysis, a MapReduce implementation in Hadoop
 
 public class MbaDriver extends Configured implements Tool {
 	
-	private final static String USAGE = "USAGE %s: <input dir path> <output dir path> <min. support> <min. confidence> <transaction count> <transaction delimiter> <max no. of passes> <enable/disable filter value>\n";
+	// Framework counters reported along with the MbaCounters of every Job
+	private final static Enum<?>[] REPORTED_COUNTERS = { JobCounter.TOTAL_LAUNCHED_MAPS, JobCounter.TOTAL_LAUNCHED_REDUCES,
+			TaskCounter.MAP_INPUT_RECORDS, TaskCounter.MAP_OUTPUT_RECORDS, TaskCounter.COMBINE_OUTPUT_RECORDS, TaskCounter.REDUCE_INPUT_RECORDS,
+			TaskCounter.REDUCE_OUTPUT_RECORDS, TaskCounter.SPILLED_RECORDS, TaskCounter.GC_TIME_MILLIS, TaskCounter.CPU_MILLISECONDS };
+	private final static String USAGE = "USAGE %s: <input dir path> <output dir path> <min. support> <min. confidence> <transaction count, 0 to count them> <transaction delimiter> <max no. of passes> <enable/disable filter value> [mining engine: apriori|fpgrowth|pfp|eclat|son|sample|local|incremental|stream]\n";
 	private static String defFS; // Value of default HDFS
 	private static String inputDir; // Path in HDFS
 	private static String outputDir; // Path in HDFS
@@ -35,10 +80,23 @@ public class MbaDriver extends Configured implements Tool {
 	private static String delimiter;
 	private static int maxPass; // Maximum no. of passes for which Apriori MapReduce job will run
 	private static boolean liftFilter; // Filter Rules by positive Lift (> 1.0) or none
-	private static String pathToSavedState; // Path to the saved state of AprioriAlgorithm object
+	private static String engine; // Algorithm used for frequent item-set mining
+	private static String dictionaryPath; // Path in HDFS to the Item Dictionary built in Pass 0
+	private static String transactionsPath; // Path in HDFS to the binary transaction cache read by Passes 2 to K
+	private static int topK; // Keep only the best K Rules by topKMetric in the Final Output, all Rules if 0
+	private static String topKMetric;
+	private static long combineBufferBytes; // Memory budget of each Mapper for combining counts in memory
+	private static boolean keepState; // Write the mining state read by the next incremental run
 	
 	private AprioriAlgorithm apriori = new AprioriAlgorithm();
+	private ItemDictionary dictionary;
 	private Utilities util = new Utilities();
+	private MiningState previous; // Mining state of the previous run, only for the incremental engine
+	private HashMap<String, Integer> allItemCounts; // Counts of every item, frequent or not, when the state is kept
+	private HashMap<ItemsetWritable, Integer> borderCounts = new HashMap<ItemsetWritable, Integer>(); // Negative border
+	private ArrayList<JobStats> jobStats = new ArrayList<JobStats>(); // Cost of every Job run so far, in order
+	private RunReport report = new RunReport(); // Written to <output dir>/run-report.json
+	private long peakHeapBytes; // Peak heap of the run up to the start of the latest Job
 	
 	public static void main(String[] args) throws Exception {
 		int exitCode = ToolRunner.run(new MbaDriver(), args);
@@ -53,13 +111,6 @@ public class MbaDriver extends Configured implements Tool {
 			ToolRunner.printGenericCommandUsage(System.err);
 			return 1;
 		}
-		// Configure the path to where the Object state of the AprioriAlgorithm will be saved
-		String pwd = Paths.get(".").toAbsolutePath().normalize().toString(); // Present working directory
-		pathToSavedState = pwd + "/tmp";
-		new File(pathToSavedState).mkdir();
-		pathToSavedState = pathToSavedState + "/apriori_saved_state.ser";
-		new File(pathToSavedState).createNewFile();
-		
 		// Store the arguments received through Command Line
 		inputDir = args[0];
 		outputDir = args[1];
@@ -69,83 +120,744 @@ public class MbaDriver extends Configured implements Tool {
 		delimiter = args[5];
 		maxPass = Integer.parseInt(args[6]);
 		liftFilter = (args[7].equals("1")) ? true : false;
+		engine = (args.length > 8) ? args[8] : "apriori";
+		if(!engine.equals("apriori") && !engine.equals("fpgrowth") && !engine.equals("pfp") && !engine.equals("eclat") && !engine.equals("son") && !engine.equals("sample") && !engine.equals("local") && !engine.equals("incremental") && !engine.equals("stream")) {
+			System.err.printf("Invalid mining engine "+engine+"!\n"+USAGE, getClass().getName());
+			return 1;
+		}
 		
-		int minSupportCount = (int)Math.ceil(minSupport * txnCount); // Calculate Absolute Support from threshold Support
+		topK = getConf().getInt("mba.topk", 0);
+		topKMetric = getConf().get("mba.topk.metric", "lift");
+		if(!topKMetric.equals("lift") && !topKMetric.equals("confidence") && !topKMetric.equals("support")) {
+			System.err.println("Invalid ranking metric "+topKMetric+"! Use lift, confidence or support");
+			return 1;
+		}
+		if(topK > 0 && (engine.equals("local") || engine.equals("stream"))) {
+			System.err.println("Top-K Rules are not kept by the local and stream engines, which always write the aggregated Rules!");
+			return 1;
+		}
+		
+		// Local engine runs the whole analysis in this JVM on the local File System, no Jobs are submitted
+		if(engine.equals("local")) {
+			int threads = getConf().getInt("mba.local.threads", Runtime.getRuntime().availableProcessors());
+			new LocalEngine(delimiter, minSupport, minConfidence, maxPass, liftFilter, threads).run(inputDir, outputDir);
+			return 0;
+		}
+		
+		/*
+		 * Stream engine mines the transactions appended to the local input file, or sent to a local socket
+		 * with -D mba.stream.port=N, over a sliding window until it is stopped. Rules are published at every interval.
+		 */
+		if(engine.equals("stream")) {
+			int threads = getConf().getInt("mba.local.threads", Runtime.getRuntime().availableProcessors());
+			int windowSize = getConf().getInt("mba.stream.window", 10000);
+			int panes = getConf().getInt("mba.stream.panes", 10);
+			double epsilon = getConf().getDouble("mba.stream.epsilon", minSupport / 10);
+			int publishSeconds = getConf().getInt("mba.stream.publish.seconds", 60);
+			int port = getConf().getInt("mba.stream.port", 0);
+			StreamEngine stream = new StreamEngine(delimiter, minSupport, minConfidence, maxPass, liftFilter, windowSize, panes, epsilon, publishSeconds, threads);
+			if(port > 0)
+				stream.listen(port, outputDir);
+			else
+				stream.tail(inputDir, outputDir);
+			return 0;
+		}
+		
+		keepState = engine.equals("incremental") || getConf().getBoolean("mba.state", false);
+		if(keepState && !engine.equals("apriori") && !engine.equals("incremental")) {
+			System.err.println("Mining state is only kept by the apriori and incremental engines!");
+			return 1;
+		}
+		String previousDir = getConf().get("mba.incremental.previous");
+		if(engine.equals("incremental") && previousDir == null) {
+			System.err.println("Incremental engine needs the output dir path of the previous run, set -D mba.incremental.previous=<dir path>");
+			return 1;
+		}
+		
+		combineBufferBytes = getConf().getLong("mba.combine.buffer.mb", 16) << 20;
 		
 		Configuration conf = new Configuration();
 		defFS = conf.get("fs.defaultFS");
-		apriori.setMinSupportCount(minSupportCount);
+		dictionaryPath = defFS + outputDir + "/item-dictionary/dict";
+		transactionsPath = defFS + outputDir + "/transactions";
 		apriori.setMaxPass(maxPass);
+		long runStart = System.currentTimeMillis();
+		if(engine.equals("incremental")) {
+			long start = System.currentTimeMillis();
+			previous = MiningState.read(conf, defFS + previousDir + "/mining-state");
+			report.addPhase("Mining State Read", System.currentTimeMillis() - start);
+		}
 		
 		// Start of Jobs
-		jobFrequentItemsetMining(minSupportCount);
+		int minSupportCount = jobItemDictionary();
+		apriori.setMinSupportCount(minSupportCount);
+		if(engine.equals("apriori"))
+			jobFrequentItemsetMining(minSupportCount);
+		else if(engine.equals("eclat"))
+			jobEclat(minSupportCount);
+		else if(engine.equals("son"))
+			jobSON(minSupportCount);
+		else if(engine.equals("incremental"))
+			jobIncrementalMining(minSupportCount);
+		else if(engine.equals("sample"))
+			jobSampling(minSupportCount);
+		else // FP-Growth runs as Parallel FP-Growth with a single group of items
+			jobFPGrowth(minSupportCount, engine.equals("pfp") ? getConf().getInt("mba.pfp.groups", 10) : 1);
 		
-		// Write to HDFS the list of all Frequent item-sets found
+		/*
+		 * Write to HDFS the list of all Frequent item-sets found
+		 * freq-list holds the item-sets as IDs for the Rule Mining jobs,
+		 * freq-list-items holds the same item-sets decoded into item names.
+		 */
+		long start = System.currentTimeMillis();
 		String filePath = defFS + outputDir + "/all-frequent-itemsets/freq-list";
 		LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>();
+		LinkedHashMap<String, Integer> decodedMap = new LinkedHashMap<String, Integer>();
 		// Sort item-sets in descending order of their Support Counts
-		apriori.getFrequentItemsets().entrySet().stream().sorted((e1, e2) -> (-1) * e1.getValue().compareTo(e2.getValue())).forEachOrdered(e -> map.put(e.getKey(), e.getValue()));
+		apriori.getFrequentItemsets().entrySet().stream().sorted((e1, e2) -> (-1) * e1.getValue().compareTo(e2.getValue())).forEachOrdered(e -> {
+			map.put(e.getKey().toString(), e.getValue());
+			decodedMap.put(dictionary.decode(e.getKey().get()), e.getValue());
+		});
 		util.addFileToHDFS(conf, filePath, map);
+		util.addFileToHDFS(conf, filePath+"-items", decodedMap);
+		report.addPhase("Frequent Item-sets Write", System.currentTimeMillis() - start, "frequent_itemsets", map.size());
+		if(keepState) {
+			start = System.currentTimeMillis();
+			writeMiningState(conf, minSupportCount);
+			report.addPhase("Mining State Write", System.currentTimeMillis() - start);
+		}
 		
 		jobAssociationRuleMining();
-		jobAssociationRuleAggregation();
+		if(topK > 0)
+			jobTopRules();
+		else
+			jobAssociationRuleAggregation();
 		// End of Jobs
+		
+		report.put("engine", engine);
+		report.put("input", inputDir);
+		report.put("output", outputDir);
+		report.put("min_support", minSupport);
+		report.put("min_confidence", minConfidence);
+		report.put("max_pass", maxPass);
+		report.put("lift_filter", liftFilter);
+		report.put("transactions", txnCount);
+		report.put("min_support_count", minSupportCount);
+		report.put("frequent_itemsets", map.size());
+		report.put("wall_ms", System.currentTimeMillis() - runStart);
+		report.write(conf, defFS + outputDir + "/run-report.json");
 		return 0;
 	}
 	
-	// Job -> Frequent item-sets Mining using K-Pass Apriori Algorithm
+	public List<JobStats> getJobStats() {
+		return jobStats;
+	}
+	
+	// Peak heap of the JVM over the whole run, Jobs and the work of the Driver between them, since the last reset of JobStats
 	
-	private void jobFrequentItemsetMining(int minSupportCount) throws IOException, ClassNotFoundException, InterruptedException {
+	public long getPeakHeapBytes() {
+		return Math.max(peakHeapBytes, JobStats.getPeakHeap());
+	}
+	
+	// Run the Job to completion and record it's cost
+	
+	private boolean runJob(Job job) throws IOException, ClassNotFoundException, InterruptedException {
+		peakHeapBytes = getPeakHeapBytes(); // Keep the peak reached so far before measuring the Job alone
+		JobStats.resetPeakHeap();
+		long start = System.currentTimeMillis();
+		boolean success = job.waitForCompletion(true);
+		long wallMillis = System.currentTimeMillis() - start;
+		long peakHeapBytes = JobStats.getPeakHeap();
+		long shuffleBytes = 0;
+		LinkedHashMap<String, Long> counters = new LinkedHashMap<String, Long>();
+		if(success) {
+			Counters all = job.getCounters();
+			shuffleBytes = all.findCounter(TaskCounter.REDUCE_SHUFFLE_BYTES).getValue();
+			for(Counter counter : all.getGroup(MbaCounters.class.getName()))
+				counters.put(counter.getName(), counter.getValue());
+			for(Enum<?> key : REPORTED_COUNTERS)
+				counters.put(key.name(), all.findCounter(key).getValue());
+		}
+		JobStats stats = new JobStats(job.getJobName(), wallMillis, shuffleBytes, peakHeapBytes, counters);
+		jobStats.add(stats);
+		report.addJob(stats);
+		return success;
+	}
+	
+	/*
+	 * Job -> Pass 0 of Apriori which counts every single item and builds the Item Dictionary
+	 * Frequent items are assigned dense IDs in descending order of their Support Counts.
+	 * The frequent items found here are also the frequent item-sets of Pass 1.
+	 * Transactions are counted here unless their count was given, and the Absolute Support derived from it is returned.
+	 * For an incremental run the input holds only the new transactions, whose counts are added to those of the previous run.
+	 */
+	
+	private int jobItemDictionary() throws IOException, ClassNotFoundException, InterruptedException {
 		String hdfsInputPath = defFS + inputDir;
+		String hdfsOutputPath = defFS + outputDir + "/output-pass-1";
+		Configuration config = new Configuration();
+		config.set("DELIMITER", delimiter);
+		// 0 keeps every item when the count is not known yet or all item counts are kept in the mining state
+		config.setInt("MIN_SUPPORT_COUNT", keepState ? 0 : (int)Math.ceil(minSupport * txnCount));
+		config.setLong("COMBINE_BUFFER_BYTES", combineBufferBytes);
+		if(engine.equals("sample")) { // Draw the sample for the in-memory mining in the same scan
+			config.setDouble("SAMPLE_FRACTION", getConf().getDouble("mba.sample.fraction", 0.1));
+			config.setLong("SAMPLE_SEED", getConf().getLong("mba.sample.seed", 0));
+		}
+		config.setBoolean("mapreduce.map.output.compress", true); // Compress output of Mapper
+		config.setBoolean("mapreduce.output.fileoutputformat.compress", false); // Reducer output left uncompressed
+		Job job = Job.getInstance(config, "Apriori Pass 0 (Item Dictionary)");
+		job.setJarByClass(MbaDriver.class);
+		job.setMapperClass(ItemDictionaryMap.class);
+		job.setCombinerClass(ItemDictionaryCombiner.class);
+		job.setReducerClass(ItemDictionaryReduce.class);
+		job.setOutputKeyClass(Text.class);
+		job.setOutputValueClass(IntWritable.class);
+		if(engine.equals("sample"))
+			MultipleOutputs.addNamedOutput(job, "sample", TextOutputFormat.class, NullWritable.class, Text.class);
+		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
+		FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath));
+		boolean success = runJob(job);
+		if(!success)
+			throw new IllegalStateException("Job Apriori Pass 0 failed!");
+		if(txnCount <= 0)
+			txnCount = (int)job.getCounters().findCounter(MbaCounters.TRANSACTIONS).getValue();
+		HashMap<String, Integer> itemCounts = util.getDirFromHDFS(config, hdfsOutputPath);
+		if(previous != null) {
+			txnCount += previous.getTransactionCount();
+			for(Entry<String, Integer> pair : previous.getItemCounts().entrySet())
+				itemCounts.merge(pair.getKey(), pair.getValue(), Integer::sum);
+		}
+		if(keepState)
+			allItemCounts = new HashMap<String, Integer>(itemCounts);
+		int minSupportCount = (int)Math.ceil(minSupport * txnCount); // Calculate Absolute Support from threshold Support
+		
+		itemCounts.values().removeIf(count -> count < minSupportCount);
+		long start = System.currentTimeMillis();
+		dictionary = ItemDictionary.build(itemCounts);
+		dictionary.write(config, dictionaryPath);
+		// Frequent items of Pass 1 are simply the IDs 0 to n-1 of the dictionary
+		ArrayList<int[]> frequentList = new ArrayList<int[]>();
+		int[] counts = new int[dictionary.size()];
+		for(int id=0; id<dictionary.size(); id++) {
+			frequentList.add(new int[] { id });
+			counts[id] = dictionary.getCount(id);
+		}
+		ItemsetLevel level = ItemsetLevel.of(1, frequentList, counts);
+		apriori.addFrequentItemsets(level);
+		report.addPhase("Item Dictionary Write", System.currentTimeMillis() - start, "frequent_items", dictionary.size());
+		apriori.nextPass();
+		return minSupportCount;
+	}
+	
+	/*
+	 * Job -> Encode the transactions once into the binary transaction cache
+	 * Map only Job writing each transaction as it's delta encoded item IDs to a Sequence File,
+	 * so Passes 2 to K neither read the text data-set nor tokenize and normalize the items again.
+	 */
+	
+	private void jobTransactionEncoding() throws IOException, ClassNotFoundException, InterruptedException {
+		String hdfsInputPath = defFS + inputDir;
+		Configuration config = new Configuration();
+		config.set("DELIMITER", delimiter);
+		config.set("DICTIONARY_PATH", dictionaryPath);
+		Job job = Job.getInstance(config, "Apriori Pass 1 (Transaction Encoding)");
+		job.setJarByClass(MbaDriver.class);
+		job.setMapperClass(TransactionEncodeMap.class);
+		job.setNumReduceTasks(0);
+		job.setOutputKeyClass(NullWritable.class);
+		job.setOutputValueClass(TransactionWritable.class);
+		job.setOutputFormatClass(SequenceFileOutputFormat.class);
+		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
+		FileOutputFormat.setOutputPath(job, new Path(transactionsPath));
+		boolean success = runJob(job);
+		if(!success)
+			throw new IllegalStateException("Job Apriori Pass 1 (Transaction Encoding) failed!");
+	}
+	
+	/*
+	 * Job -> Frequent item-sets Mining using K-Pass Apriori Algorithm for Pass 2 to K
+	 * With trimming enabled (-D mba.apriori.trim=true) each Pass writes the transactions reduced for the next Pass
+	 * to <output-pass-i>/transactions, which the next Pass reads instead of the full transaction cache.
+	 * With the mining state kept (-D mba.state=true) the infrequent Candidates of each Pass are kept as the negative border.
+	 * Candidates of each Pass are generated here once and shipped to the Mappers through the distributed cache.
+	 * Each Pass runs -D mba.apriori.reducers=N Reducers (1 by default), whose parts of the frequent item-sets
+	 * are merged here into the level the Candidates of the next Pass are generated from.
+	 */
+	
+	private void jobFrequentItemsetMining(int minSupportCount) throws IOException, ClassNotFoundException, InterruptedException {
 		String hdfsOutputPath = defFS + outputDir + "/output-pass-";
+		String hdfsInputPath = transactionsPath;
+		boolean trim = getConf().getBoolean("mba.apriori.trim", false);
+		int reducers = getConf().getInt("mba.apriori.reducers", 1);
+		AprioriStateStore store = new AprioriStateStore(new Configuration());
 		boolean success;
+		if(!apriori.hasConverged())
+			jobTransactionEncoding();
 		while(!apriori.hasConverged()) {
 			int currentPass = apriori.getCurrentPass();
-			util.serialize(pathToSavedState, apriori);
+			boolean trimPass = trim && currentPass < maxPass; // Nothing to trim for after the last Pass
+			ArrayList<int[]> candidates = generateCandidates(currentPass);
+			if(candidates.isEmpty()) // Every joined item-set had an infrequent subset; Nothing left to count
+				break;
+			String candidatesPath = defFS + outputDir + "/candidates/candidates-" + currentPass;
+			long start = System.currentTimeMillis();
+			CandidateFile.write(new Configuration(), candidatesPath, currentPass, candidates);
+			report.addPhase("Pass "+currentPass+" Candidates Write", System.currentTimeMillis() - start);
 			Configuration config = new Configuration();
 			config.setInt("APRIORI_PASS", currentPass);
 			config.set("DELIMITER", delimiter);
 			config.setInt("MIN_SUPPORT_COUNT", minSupportCount);
-			config.set("SAVED_STATE_PATH", pathToSavedState);
+			config.setLong("COMBINE_BUFFER_BYTES", combineBufferBytes);
+			config.set("CANDIDATES_PATH", candidatesPath);
+			config.set("CANDIDATES_LINK", "candidates-" + currentPass);
+			config.set("DICTIONARY_PATH", dictionaryPath);
+			config.setBoolean("TRIM_TRANSACTIONS", trimPass);
+			config.setBoolean("WRITE_BORDER", keepState);
 			config.setBoolean("mapreduce.map.output.compress", true); // Compress output of Mapper
 			config.setBoolean("mapreduce.output.fileoutputformat.compress", false); // Reducer output left uncompressed
 			Job job = Job.getInstance(config, "Apriori Pass "+currentPass);
 			job.setJarByClass(MbaDriver.class);
 			job.setMapperClass(AprioriPassKMap.class);
+			job.addCacheFile(new Path(candidatesPath).toUri().resolve("#candidates-" + currentPass));
+			job.setInputFormatClass(SequenceFileInputFormat.class);
 			job.setCombinerClass(AprioriPassKCombiner.class);
 			job.setReducerClass(AprioriPassKReduce.class);
-			job.setOutputKeyClass(Text.class);
+			job.setNumReduceTasks(reducers);
+			job.setOutputKeyClass(ItemsetWritable.class);
 			job.setOutputValueClass(IntWritable.class);
+			if(trimPass)
+				MultipleOutputs.addNamedOutput(job, "trimmed", SequenceFileOutputFormat.class, NullWritable.class, TransactionWritable.class);
+			if(keepState)
+				MultipleOutputs.addNamedOutput(job, "border", TextOutputFormat.class, ItemsetWritable.class, IntWritable.class);
 			FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
 			FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath+currentPass));
-			success = job.waitForCompletion(true);
+			success = runJob(job);
 			if(!success)
 				throw new IllegalStateException("Job Apriori Pass "+currentPass+" failed!");
-			apriori = util.deserialize(pathToSavedState);
+			start = System.currentTimeMillis();
+			ItemsetLevel level = store.readLevel(new Path(hdfsOutputPath + currentPass, "state"), currentPass);
+			apriori.addFrequentItemsets(level);
+			report.addPhase("Pass "+currentPass+" State Read", System.currentTimeMillis() - start, "frequent_itemsets", level.size());
 			apriori.nextPass();
+			if(keepState)
+				addNegativeBorder(candidates, util.getDirFromHDFS(config, hdfsOutputPath + currentPass + "/border"));
+			if(trimPass) {
+				hdfsInputPath = hdfsOutputPath + currentPass + "/transactions";
+				// No transaction left that could contain a Candidate of the next Pass
+				if(job.getCounters().findCounter(MbaCounters.TRIMMED_TRANSACTIONS).getValue() == 0)
+					break;
+			}
 		}
-		util.serialize(pathToSavedState, apriori);
 	}
 	
-	// Job -> Association Rule Mining to find complete set of valid Rules from list of Frequent item-sets
+	// Generate the Candidates of the Pass from the frequent item-sets of the previous one and report the cost
+	
+	private ArrayList<int[]> generateCandidates(int pass) {
+		long start = System.currentTimeMillis();
+		ArrayList<int[]> candidates = apriori.getNextCandidateItemsets();
+		report.addPhase("Pass "+pass+" Candidate Generation", System.currentTimeMillis() - start,
+				"candidates_joined", apriori.getJoinedCount(), "candidates_pruned", apriori.getJoinedCount() - candidates.size(), "candidates", candidates.size());
+		return candidates;
+	}
+	
+	// Keep every Candidate which did not turn out frequent with it's count, 0 if no transaction contains it
+	
+	private void addNegativeBorder(ArrayList<int[]> candidates, HashMap<String, Integer> infrequentCounts) {
+		HashMap<ItemsetWritable, Integer> counts = new HashMap<ItemsetWritable, Integer>();
+		for(Entry<String, Integer> pair : infrequentCounts.entrySet())
+			counts.put(new ItemsetWritable(Itemsets.parse(pair.getKey())), pair.getValue());
+		for(int[] candidate : candidates) {
+			ItemsetWritable itemset = new ItemsetWritable(candidate);
+			if(!apriori.getFrequentItemsets().containsKey(itemset))
+				borderCounts.put(itemset, counts.getOrDefault(itemset, 0));
+		}
+	}
+	
+	/*
+	 * Jobs -> Incremental Frequent item-sets Mining (FUP) of the transactions added since a previous run
+	 * The mining state of the previous run holds the counts of it's frequent item-sets and of their negative border
+	 * over all the transactions read so far, so these are only counted in the new transactions by a single scan.
+	 * Candidates of Pass K are generated level by level from the updated frequent item-sets as in Apriori.
+	 * A Candidate missing from the state had a count below the previous Support Count S, so with the new Support Count S'
+	 * it can only be frequent if it's count in the new transactions is at least S'-S+1. Only the Candidates passing
+	 * this check are counted again over the previous data-sets as well.
+	 */
+	
+	private void jobIncrementalMining(int minSupportCount) throws IOException, ClassNotFoundException, InterruptedException {
+		String hdfsOutputPath = defFS + outputDir + "/incremental-pass-";
+		List<String> newInput = Arrays.asList(defFS + inputDir);
+		List<String> allInputs = new ArrayList<String>(previous.getInputs());
+		allInputs.addAll(newInput);
+		
+		HashMap<ItemsetWritable, Integer> known = previous.getItemsetCounts(dictionary);
+		HashMap<ItemsetWritable, Integer> newCounts = known.isEmpty() ? known : countItemsets(known.keySet(), 1, newInput, hdfsOutputPath+"known", "Incremental Known item-sets");
+		while(!apriori.hasConverged()) {
+			int currentPass = apriori.getCurrentPass();
+			ArrayList<int[]> candidates = generateCandidates(currentPass);
+			HashMap<ItemsetWritable, Integer> counts = new HashMap<ItemsetWritable, Integer>();
+			ArrayList<ItemsetWritable> unknown = new ArrayList<ItemsetWritable>();
+			for(int[] candidate : candidates) {
+				ItemsetWritable itemset = new ItemsetWritable(candidate);
+				Integer count = known.get(itemset);
+				if(count != null)
+					counts.put(itemset, count + newCounts.getOrDefault(itemset, 0));
+				else
+					unknown.add(itemset);
+			}
+			if(!unknown.isEmpty()) {
+				// No bound on the previous count of item-sets larger than any the previous run mined
+				int minNewCount = currentPass <= previous.getMaxPass() ? minSupportCount - previous.getMinSupportCount() + 1 : 0;
+				Collection<ItemsetWritable> rescan = unknown;
+				if(minNewCount > 0)
+					rescan = countItemsets(unknown, minNewCount, newInput, hdfsOutputPath+currentPass+"-new", "Incremental Pass "+currentPass+" (New transactions)").keySet();
+				if(!rescan.isEmpty()) {
+					HashMap<ItemsetWritable, Integer> totals = countItemsets(rescan, 1, allInputs, hdfsOutputPath+currentPass, "Incremental Pass "+currentPass+" (All transactions)");
+					for(ItemsetWritable itemset : rescan)
+						counts.put(itemset, totals.getOrDefault(itemset, 0));
+				}
+			}
+			ArrayList<int[]> frequentList = new ArrayList<int[]>();
+			int[] frequentCounts = new int[candidates.size()];
+			for(int[] candidate : candidates) {
+				ItemsetWritable itemset = new ItemsetWritable(candidate);
+				Integer count = counts.get(itemset);
+				if(count == null) // Failed the check on the new transactions; Not frequent
+					continue;
+				if(count >= minSupportCount) {
+					frequentCounts[frequentList.size()] = count;
+					frequentList.add(candidate);
+				}
+				else
+					borderCounts.put(itemset, count);
+			}
+			apriori.addFrequentItemsets(ItemsetLevel.of(currentPass, frequentList, frequentCounts));
+			apriori.nextPass();
+		}
+	}
+	
+	/*
+	 * Jobs -> Frequent item-sets Mining from a random sample (Toivonen)
+	 * Pass 0 draws a sample of -D mba.sample.fraction of the transactions, which the Driver mines in memory with FP-Growth
+	 * at the threshold Support lowered by -D mba.sample.support.factor. One scan then counts over all the transactions
+	 * the item-sets frequent in the sample together with their negative border, the smallest item-sets not frequent
+	 * in the sample. If no item-set of the border is frequent the result is exact.
+	 * Otherwise a frequent item-set may have been missed: by default the negative border of the frequent item-sets
+	 * found is counted by further scans until none of it is frequent, with -D mba.sample.fallback=false the miss is only reported.
+	 */
+	
+	private void jobSampling(int minSupportCount) throws IOException, ClassNotFoundException, InterruptedException {
+		String hdfsOutputPath = defFS + outputDir + "/sample-verification-";
+		List<String> input = Arrays.asList(defFS + inputDir);
+		double supportFactor = getConf().getDouble("mba.sample.support.factor", 0.8);
+		boolean fallback = getConf().getBoolean("mba.sample.fallback", true);
+		
+		long start = System.currentTimeMillis();
+		FPTree tree = new FPTree(dictionary.size());
+		int sampleCount = readSample(defFS + outputDir + "/output-pass-1/sample", tree);
+		int sampleSupportCount = Math.max(1, (int)Math.ceil(minSupport * supportFactor * sampleCount));
+		HashSet<ItemsetWritable> sampleFrequent = new HashSet<ItemsetWritable>(apriori.getFrequentItemsets().keySet()); // Items are known exactly
+		new FPGrowth(sampleSupportCount, maxPass).mine(tree, (itemset, count) -> sampleFrequent.add(new ItemsetWritable(itemset)));
+		
+		HashSet<ItemsetWritable> border = negativeBorder(sampleFrequent);
+		report.addPhase("Sample Mining", System.currentTimeMillis() - start, "sample_transactions", sampleCount, "sample_frequent_itemsets", sampleFrequent.size(), "negative_border", border.size());
+		Collection<ItemsetWritable> candidates = new ArrayList<ItemsetWritable>(border);
+		for(ItemsetWritable itemset : sampleFrequent) {
+			if(itemset.size() > 1)
+				candidates.add(itemset);
+		}
+		HashSet<ItemsetWritable> counted = new HashSet<ItemsetWritable>();
+		for(int scan=1; !candidates.isEmpty(); scan++) {
+			HashMap<ItemsetWritable, Integer> counts = countItemsets(candidates, minSupportCount, input, hdfsOutputPath+scan, "Sampling Verification "+scan);
+			counted.addAll(candidates);
+			int misses = 0;
+			for(Entry<ItemsetWritable, Integer> pair : counts.entrySet()) {
+				apriori.mapPut(pair.getKey().get(), pair.getValue());
+				if(border.contains(pair.getKey()))
+					misses++;
+			}
+			if(misses == 0)
+				break;
+			if(!fallback) {
+				System.err.println("Sampling missed frequent item-sets: "+misses+" item-sets of the negative border are frequent, the result may be incomplete");
+				break;
+			}
+			// Count the new negative border of all the frequent item-sets found so far
+			border = negativeBorder(apriori.getFrequentItemsets().keySet());
+			border.removeAll(counted);
+			candidates = border;
+		}
+	}
+	
+	// Encode every transaction of the sample written by Pass 0 into the tree, returns the number of transactions in the sample
+	
+	private int readSample(String dirPath, FPTree tree) throws IOException {
+		Configuration conf = new Configuration();
+		FileSystem hdfs = FileSystem.get(conf);
+		Path dir = new Path(dirPath);
+		if(!hdfs.exists(dir))
+			return 0;
+		int count = 0;
+		for(FileStatus status : hdfs.listStatus(dir)) {
+			if(!status.getPath().getName().startsWith("part-"))
+				continue;
+			BufferedReader in = new BufferedReader(new InputStreamReader(hdfs.open(status.getPath())));
+			String line = null;
+			while((line = in.readLine()) != null) {
+				int[] txn = dictionary.encode(line, delimiter);
+				tree.add(txn, txn.length, 1);
+				count++;
+			}
+			in.close();
+		}
+		return count;
+	}
+	
+	/*
+	 * Negative border of a downward closed collection of item-sets holding all the frequent items:
+	 * the item-sets of 2 to maxPass items not in the collection all of whose subsets one item smaller are.
+	 * These are exactly the Candidates Apriori generates from each level of the collection which the collection lacks.
+	 */
+	
+	private HashSet<ItemsetWritable> negativeBorder(Set<ItemsetWritable> itemsets) {
+		ArrayList<ArrayList<int[]>> levels = new ArrayList<ArrayList<int[]>>();
+		for(ItemsetWritable itemset : itemsets) {
+			while(levels.size() <= itemset.size())
+				levels.add(new ArrayList<int[]>());
+			levels.get(itemset.size()).add(itemset.get());
+		}
+		HashSet<ItemsetWritable> border = new HashSet<ItemsetWritable>();
+		AprioriAlgorithm generator = new AprioriAlgorithm();
+		for(int k=2; k<=maxPass && k-1<levels.size() && levels.get(k-1).size() > 1; k++) {
+			generator.buildItemsList(levels.get(k-1));
+			for(int[] candidate : generator.getNextCandidateItemsets()) {
+				ItemsetWritable itemset = new ItemsetWritable(candidate);
+				if(!itemsets.contains(itemset))
+					border.add(itemset);
+			}
+		}
+		return border;
+	}
+	
+	/*
+	 * Job -> Count the given item-sets of any size in the given input data-sets and keep those counted at least minCount times
+	 * Runs the SON Phase 2 counting with the item-sets written as it's list of Candidates.
+	 */
+	
+	private HashMap<ItemsetWritable, Integer> countItemsets(Collection<ItemsetWritable> itemsets, int minCount, List<String> inputs, String hdfsOutputPath, String name) throws IOException, ClassNotFoundException, InterruptedException {
+		String candidatesPath = hdfsOutputPath + "-candidates";
+		Configuration config = new Configuration();
+		config.set("DELIMITER", delimiter);
+		config.setInt("MIN_SUPPORT_COUNT", minCount);
+		config.setLong("COMBINE_BUFFER_BYTES", combineBufferBytes);
+		config.set("DICTIONARY_PATH", dictionaryPath);
+		config.set("CANDIDATES_PATH", candidatesPath);
+		config.setBoolean("mapreduce.map.output.compress", true); // Compress output of Mapper
+		config.setBoolean("mapreduce.output.fileoutputformat.compress", false); // Reducer output left uncompressed
+		LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>();
+		for(ItemsetWritable itemset : itemsets)
+			map.put(itemset.toString(), 0);
+		util.addFileToHDFS(config, candidatesPath+"/part-r-00000", map);
+		
+		Job job = Job.getInstance(config, name);
+		job.setJarByClass(MbaDriver.class);
+		job.setMapperClass(SONCountMap.class);
+		job.setCombinerClass(AprioriPassKCombiner.class);
+		job.setReducerClass(SONCountReduce.class);
+		job.setOutputKeyClass(ItemsetWritable.class);
+		job.setOutputValueClass(IntWritable.class);
+		for(String input : inputs)
+			FileInputFormat.addInputPath(job, new Path(input));
+		FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath));
+		boolean success = runJob(job);
+		if(!success)
+			throw new IllegalStateException("Job "+name+" failed!");
+		HashMap<ItemsetWritable, Integer> counts = new HashMap<ItemsetWritable, Integer>();
+		for(Entry<String, Integer> pair : util.getDirFromHDFS(config, hdfsOutputPath).entrySet())
+			counts.put(new ItemsetWritable(Itemsets.parse(pair.getKey())), pair.getValue());
+		return counts;
+	}
+	
+	/*
+	 * Write the mining state of this run to <output dir>/mining-state for the next incremental run:
+	 * the counts of all items, frequent item-sets and negative border over every data-set read so far.
+	 */
+	
+	private void writeMiningState(Configuration conf, int minSupportCount) throws IOException {
+		ArrayList<String> inputs = new ArrayList<String>();
+		if(previous != null)
+			inputs.addAll(previous.getInputs());
+		inputs.add(defFS + inputDir);
+		HashMap<ItemsetWritable, Integer> itemsets = new HashMap<ItemsetWritable, Integer>(apriori.getFrequentItemsets());
+		itemsets.putAll(borderCounts);
+		MiningState.of(txnCount, minSupportCount, maxPass, inputs, allItemCounts, dictionary, itemsets).write(conf, defFS + outputDir + "/mining-state");
+	}
+	
+	/*
+	 * Job -> Frequent item-sets Mining using (Parallel) FP-Growth
+	 * A single scan after Pass 0 replaces all the Passes of Apriori. The frequent items are split into groups,
+	 * each reducer builds the FP-Tree of one group and mines the item-sets ending with an item of that group.
+	 */
+	
+	private void jobFPGrowth(int minSupportCount, int groups) throws IOException, ClassNotFoundException, InterruptedException {
+		String hdfsInputPath = defFS + inputDir;
+		String hdfsOutputPath = defFS + outputDir + "/fpgrowth-output";
+		Configuration config = new Configuration();
+		config.set("DELIMITER", delimiter);
+		config.setInt("MIN_SUPPORT_COUNT", minSupportCount);
+		config.setInt("MAX_PASS", maxPass);
+		config.setInt("FP_GROUPS", groups);
+		config.setInt("ITEM_COUNT", dictionary.size());
+		config.set("DICTIONARY_PATH", dictionaryPath);
+		config.setBoolean("mapreduce.map.output.compress", true); // Compress output of Mapper
+		config.setBoolean("mapreduce.output.fileoutputformat.compress", false); // Reducer output left uncompressed
+		Job job = Job.getInstance(config, "FP-Growth ("+groups+" groups)");
+		job.setJarByClass(MbaDriver.class);
+		job.setMapperClass(FPGrowthMap.class);
+		job.setReducerClass(FPGrowthReduce.class);
+		job.setNumReduceTasks(groups);
+		job.setMapOutputKeyClass(IntWritable.class);
+		job.setMapOutputValueClass(ItemsetWritable.class);
+		job.setOutputKeyClass(ItemsetWritable.class);
+		job.setOutputValueClass(IntWritable.class);
+		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
+		FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath));
+		boolean success = runJob(job);
+		if(!success)
+			throw new IllegalStateException("Job FP-Growth failed!");
+		for(Entry<String, Integer> pair : util.getDirFromHDFS(config, hdfsOutputPath).entrySet())
+			apriori.mapPut(Itemsets.parse(pair.getKey()), pair.getValue());
+	}
+	
+	/*
+	 * Job -> Frequent item-sets Mining using Eclat
+	 * Mappers turn the transactions into vertical lists of transaction IDs per item stored as compressed bitmaps,
+	 * a single reducer merges them and counts Support by intersecting the bitmaps instead of rescanning transactions.
+	 */
+	
+	private void jobEclat(int minSupportCount) throws IOException, ClassNotFoundException, InterruptedException {
+		String hdfsInputPath = defFS + inputDir;
+		String hdfsOutputPath = defFS + outputDir + "/eclat-output";
+		Configuration config = new Configuration();
+		config.set("DELIMITER", delimiter);
+		config.setInt("MIN_SUPPORT_COUNT", minSupportCount);
+		config.setInt("MAX_PASS", maxPass);
+		config.setInt("ECLAT_THREADS", getConf().getInt("mba.eclat.threads", Runtime.getRuntime().availableProcessors()));
+		config.set("DICTIONARY_PATH", dictionaryPath);
+		config.setBoolean("mapreduce.map.output.compress", true); // Compress output of Mapper
+		config.setBoolean("mapreduce.output.fileoutputformat.compress", false); // Reducer output left uncompressed
+		Job job = Job.getInstance(config, "Eclat");
+		job.setJarByClass(MbaDriver.class);
+		job.setMapperClass(EclatMap.class);
+		job.setReducerClass(EclatReduce.class);
+		job.setNumReduceTasks(1);
+		job.setMapOutputKeyClass(IntWritable.class);
+		job.setMapOutputValueClass(SplitTidsWritable.class);
+		job.setOutputKeyClass(ItemsetWritable.class);
+		job.setOutputValueClass(IntWritable.class);
+		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
+		FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath));
+		boolean success = runJob(job);
+		if(!success)
+			throw new IllegalStateException("Job Eclat failed!");
+		for(Entry<String, Integer> pair : util.getDirFromHDFS(config, hdfsOutputPath).entrySet())
+			apriori.mapPut(Itemsets.parse(pair.getKey()), pair.getValue());
+	}
+	
+	/*
+	 * Jobs -> Frequent item-sets Mining using the partition based SON algorithm
+	 * Phase 1: each mapper mines it's split in memory at the proportionally scaled threshold Support,
+	 * and the union of all local frequent item-sets becomes the list of global Candidates.
+	 * Phase 2: one scan counts every Candidate exactly and keeps the globally frequent ones.
+	 * Two scans after Pass 0 regardless of the size of the largest frequent item-set.
+	 */
+	
+	private void jobSON(int minSupportCount) throws IOException, ClassNotFoundException, InterruptedException {
+		String hdfsInputPath = defFS + inputDir;
+		String candidatesPath = defFS + outputDir + "/son-candidates";
+		String hdfsOutputPath = defFS + outputDir + "/son-output";
+		Configuration config = new Configuration();
+		config.set("DELIMITER", delimiter);
+		config.setDouble("MIN_SUPPORT", minSupport);
+		config.setInt("MIN_SUPPORT_COUNT", minSupportCount);
+		config.setLong("COMBINE_BUFFER_BYTES", combineBufferBytes);
+		config.setInt("MAX_PASS", maxPass);
+		config.set("DICTIONARY_PATH", dictionaryPath);
+		config.set("CANDIDATES_PATH", candidatesPath);
+		config.setBoolean("mapreduce.map.output.compress", true); // Compress output of Mapper
+		config.setBoolean("mapreduce.output.fileoutputformat.compress", false); // Reducer output left uncompressed
+		
+		// Phase 1 -> <candidate_itemset, no. of splits where it is locally frequent>
+		Job job = Job.getInstance(config, "SON Phase 1 (Local Mining)");
+		job.setJarByClass(MbaDriver.class);
+		job.setMapperClass(SONCandidateMap.class);
+		job.setCombinerClass(AprioriPassKCombiner.class);
+		job.setReducerClass(AprioriPassKCombiner.class);
+		job.setOutputKeyClass(ItemsetWritable.class);
+		job.setOutputValueClass(IntWritable.class);
+		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
+		FileOutputFormat.setOutputPath(job, new Path(candidatesPath));
+		boolean success = runJob(job);
+		if(!success)
+			throw new IllegalStateException("Job SON Phase 1 failed!");
+		
+		// Phase 2 -> <frequent_itemset, count>
+		job = Job.getInstance(config, "SON Phase 2 (Candidate Counting)");
+		job.setJarByClass(MbaDriver.class);
+		job.setMapperClass(SONCountMap.class);
+		job.setCombinerClass(AprioriPassKCombiner.class);
+		job.setReducerClass(SONCountReduce.class);
+		job.setOutputKeyClass(ItemsetWritable.class);
+		job.setOutputValueClass(IntWritable.class);
+		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
+		FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath));
+		success = runJob(job);
+		if(!success)
+			throw new IllegalStateException("Job SON Phase 2 failed!");
+		for(Entry<String, Integer> pair : util.getDirFromHDFS(config, hdfsOutputPath).entrySet())
+			apriori.mapPut(Itemsets.parse(pair.getKey()), pair.getValue());
+	}
+	
+	/*
+	 * Job -> Association Rule Mining to find complete set of valid Rules from list of Frequent item-sets
+	 * By default the frequent item-sets are spread across the reducers, each loading the list into an in-memory index.
+	 * With -D mba.rules.mapside=true the Driver writes a binary index of the frequent item-sets which is shipped
+	 * to every Mapper through the distributed cache, and the Rules are mined by a Map only Job.
+	 */
 	
 	private void jobAssociationRuleMining() throws IOException, ClassNotFoundException, InterruptedException {
 		String hdfsInputPath = defFS + outputDir + "/all-frequent-itemsets/freq-list";
 		String hdfsOutputPath = defFS + outputDir + "/rule-mining-output";
+		boolean mapSide = getConf().getBoolean("mba.rules.mapside", false);
 		Configuration config = new Configuration();
 		config.setDouble("MIN_CONFIDENCE", minConfidence);
 		config.setInt("TRANSACTION_COUNT", txnCount);
 		config.setBoolean("LIFT_FILTER", liftFilter);
-		config.set("SAVED_STATE_PATH", pathToSavedState);
+		config.set("FREQ_LIST_PATH", hdfsInputPath);
 		Job job = Job.getInstance(config, "Association Rule Mining");
 		job.setJarByClass(MbaDriver.class);
-		job.setMapperClass(AssociationRuleMiningMap.class);
-		job.setReducerClass(AssociationRuleMiningReduce.class);
+		if(mapSide) {
+			String indexPath = defFS + outputDir + "/all-frequent-itemsets/freq-index";
+			long start = System.currentTimeMillis();
+			MappedSupportIndex.write(config, indexPath, apriori.getFrequentItemsets());
+			report.addPhase("Support Index Write", System.currentTimeMillis() - start);
+			job.getConfiguration().set("FREQ_INDEX_PATH", indexPath);
+			job.getConfiguration().set("FREQ_INDEX_LINK", "freq-index");
+			job.addCacheFile(new Path(indexPath).toUri().resolve("#freq-index"));
+			job.setMapperClass(AssociationRuleMiningIndexMap.class);
+			job.setNumReduceTasks(0);
+		}
+		else {
+			job.setMapperClass(AssociationRuleMiningMap.class);
+			job.setReducerClass(AssociationRuleMiningReduce.class);
+			job.setMapOutputKeyClass(ItemsetWritable.class);
+			job.setMapOutputValueClass(IntWritable.class);
+		}
 		job.setOutputKeyClass(Text.class);
 		job.setOutputValueClass(Text.class);
 		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
 		FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath));
-		boolean success = job.waitForCompletion(true);
+		boolean success = runJob(job);
 		if(!success)
 			throw new IllegalStateException("Job Association Rule Mining failed!");
 	}
@@ -156,20 +868,56 @@ public class MbaDriver extends Configured implements Tool {
 		String hdfsInputPath = defFS + outputDir + "/rule-mining-output";
 		String hdfsOutputPath = defFS + outputDir + "/final-output";
 		Configuration config = new Configuration();
+		config.set("DICTIONARY_PATH", dictionaryPath);
 		Job job = Job.getInstance(config, "Association Rule Aggregation");
 		job.setJarByClass(MbaDriver.class);
 		job.setMapperClass(RuleAggregatorMap.class);
 		job.setReducerClass(RuleAggregatorReduce.class);
 		job.setPartitionerClass(RuleAggregatorPartitioner.class);
 		job.setGroupingComparatorClass(RuleAggregatorGroupComparator.class);
-		job.setSortComparatorClass(RuleAggregatorSortComparator.class);
+		job.setSortComparatorClass(RuleKeyWritable.Comparator.class);
+		job.setMapOutputKeyClass(RuleKeyWritable.class);
+		job.setMapOutputValueClass(Text.class);
 		job.setOutputKeyClass(Text.class);
 		job.setOutputValueClass(Text.class);
 		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
 		FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath));
-		boolean success = job.waitForCompletion(true);
+		boolean success = runJob(job);
 		if(!success)
 			throw new IllegalStateException("Job Association Rule Aggregation failed!");
 	}
 	
+	/*
+	 * Job -> Top-K Rules; Final Output of Market Basket Analysis in place of the Rule Aggregation
+	 * Keeps the best K Rules by Lift, Confidence or Support for each consequent, or of all the Rules with
+	 * -D mba.topk.per.consequent=false. Mappers keep bounded heaps and reducers merge them,
+	 * so the full list of Rules is never sorted. Redundant Rules are not removed in this mode.
+	 */
+	
+	private void jobTopRules() throws IOException, ClassNotFoundException, InterruptedException {
+		String hdfsInputPath = defFS + outputDir + "/rule-mining-output";
+		String hdfsOutputPath = defFS + outputDir + "/final-output";
+		boolean perConsequent = getConf().getBoolean("mba.topk.per.consequent", true);
+		Configuration config = new Configuration();
+		config.set("DICTIONARY_PATH", dictionaryPath);
+		config.setInt("TOP_K", topK);
+		config.set("TOP_K_METRIC", topKMetric);
+		config.setBoolean("TOP_K_PER_CONSEQUENT", perConsequent);
+		Job job = Job.getInstance(config, "Top "+topK+" Rules by "+topKMetric);
+		job.setJarByClass(MbaDriver.class);
+		job.setMapperClass(TopRulesMap.class);
+		job.setReducerClass(TopRulesReduce.class);
+		if(!perConsequent)
+			job.setNumReduceTasks(1); // All Rules share a single key
+		job.setMapOutputKeyClass(ItemsetWritable.class);
+		job.setMapOutputValueClass(Text.class);
+		job.setOutputKeyClass(Text.class);
+		job.setOutputValueClass(Text.class);
+		FileInputFormat.addInputPath(job, new Path(hdfsInputPath));
+		FileOutputFormat.setOutputPath(job, new Path(hdfsOutputPath));
+		boolean success = runJob(job);
+		if(!success)
+			throw new IllegalStateException("Job Top-K Rules failed!");
+	}
+	
 }
\ No newline at end of file
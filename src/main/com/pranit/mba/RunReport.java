@@ -0,0 +1,76 @@
+package com.pranit.mba;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.pranit.mba.utils.Json;
+
+/*
+ * Machine readable report of a run, written by the Driver as JSON to <output dir>/run-report.json:
+ * the settings and totals of the run, followed by every step in the order it ran.
+ * A step is either a Job, with it's wall time, shuffled bytes, peak heap and counters,
+ * or a phase of work done by the Driver in between the Jobs, like generating Candidates or reading the state,
+ * with it's wall time and the figures it produced.
+ */
+
+public class RunReport {
+
+	private LinkedHashMap<String, Object> run = new LinkedHashMap<String, Object>();
+	private ArrayList<Object> steps = new ArrayList<Object>();
+
+	// Add a setting or total of the run
+
+	public void put(String key, Object value) {
+		run.put(key, value);
+	}
+
+	public void addJob(JobStats stats) {
+		LinkedHashMap<String, Object> step = new LinkedHashMap<String, Object>();
+		step.put("type", "job");
+		step.put("name", stats.getName());
+		step.put("wall_ms", stats.getWallMillis());
+		step.put("shuffle_bytes", stats.getShuffleBytes());
+		step.put("peak_heap_bytes", stats.getPeakHeapBytes());
+		Map<String, Long> counters = stats.getCounters();
+		Long loaded = counters.get(MbaCounters.CANDIDATES_LOADED.name());
+		Long mappers = counters.get(MbaCounters.CANDIDATE_MAPPERS.name());
+		if(loaded != null && mappers != null && mappers > 0)
+			step.put("candidates_loaded_per_mapper", loaded / mappers);
+		step.put("counters", counters);
+		steps.add(step);
+	}
+
+	// Add a phase of the Driver with the figures it produced, given as alternating names and values
+
+	public void addPhase(String name, long wallMillis, Object... figures) {
+		LinkedHashMap<String, Object> step = new LinkedHashMap<String, Object>();
+		step.put("type", "driver");
+		step.put("name", name);
+		step.put("wall_ms", wallMillis);
+		for(int i=0; i+1<figures.length; i+=2)
+			step.put((String)figures[i], figures[i+1]);
+		steps.add(step);
+	}
+
+	public void write(Configuration conf, String filePath) throws IOException {
+		LinkedHashMap<String, Object> report = new LinkedHashMap<String, Object>(run);
+		report.put("steps", steps);
+		StringBuilder json = new StringBuilder();
+		Json.append(json, report, "");
+		json.append('\n');
+		FileSystem hdfs = FileSystem.get(conf);
+		BufferedWriter out = new BufferedWriter(new OutputStreamWriter(hdfs.create(new Path(filePath), true), StandardCharsets.UTF_8));
+		out.write(json.toString());
+		out.close();
+	}
+}
@@ -0,0 +1,42 @@
+package com.pranit.mba;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import com.pranit.mba.io.TransactionWritable;
+import com.pranit.mba.utils.ItemDictionary;
+
+/*
+ * Map only Job which parses the text transactions for the last time after Pass 1.
+ * Each transaction is encoded into it's sorted frequent item IDs using the Item Dictionary
+ * and written to the binary transaction cache which Passes 2 to K read instead of the input data-set.
+ * Transactions with less than 2 frequent items cannot contain any Candidate and are left out of the cache.
+ */
+
+public class TransactionEncodeMap extends Mapper<LongWritable, Text, NullWritable, TransactionWritable> {
+	
+	private TransactionWritable txn_out = new TransactionWritable();
+	private ItemDictionary dictionary;
+	private String delimiter;
+	
+	@Override
+	protected void setup(Context context) throws IOException {
+		Configuration conf = context.getConfiguration();
+		delimiter = conf.get("DELIMITER");
+		dictionary = ItemDictionary.read(conf, conf.get("DICTIONARY_PATH"));
+	}
+	
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		int[] txn = dictionary.encode(value.toString(), delimiter);
+		if(txn.length < 2)
+			return;
+		txn_out.set(txn);
+		context.write(NullWritable.get(), txn_out);
+	}
+}
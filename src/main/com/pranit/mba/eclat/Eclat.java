@@ -0,0 +1,118 @@
+package com.pranit.mba.eclat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.pranit.mba.utils.ItemsetCollector;
+
+/*
+ * Eclat - mine frequent item-sets from vertical lists of transaction IDs.
+ * The item-sets sharing the same prefix form an equivalence class. The Support of prefix+a+b is the
+ * cardinality of tids(prefix+a) AND tids(prefix+b), so each class is extended by intersecting the bitmaps of
+ * it's members pairwise and the classes are mined independently of each other as tasks of a fork-join pool.
+ * Items within a class are kept in ascending order of ID so every item-set comes out sorted.
+ */
+
+public class Eclat {
+	
+	private static final int FORK_THRESHOLD = 2; // Smallest class that is worth a task of it's own
+	
+	private int minSupportCount;
+	private int maxLength;
+	private ForkJoinPool pool;
+	
+	public Eclat(int minSupportCount, int maxLength, ForkJoinPool pool) {
+		this.minSupportCount = minSupportCount;
+		this.maxLength = maxLength;
+		this.pool = pool;
+	}
+	
+	/*
+	 * Mine all frequent item-sets from the frequent items, in ascending order of ID, and their transaction IDs.
+	 * The collector is called by one thread at a time.
+	 */
+	
+	public void mine(int[] items, TidBitmap[] tidLists, ItemsetCollector collector) throws IOException, InterruptedException {
+		if(maxLength < 1 || items.length == 0)
+			return;
+		try {
+			pool.invoke(new ClassTask(new int[0], items, tidLists, collector));
+		} catch (RuntimeException e) {
+			// Rethrow the checked exception of the collector, which may be wrapped again by the pool
+			for(Throwable cause = e; cause != null; cause = cause.getCause()) {
+				if(cause instanceof IOException)
+					throw (IOException)cause;
+				if(cause instanceof InterruptedException)
+					throw (InterruptedException)cause;
+			}
+			throw e;
+		}
+	}
+	
+	private class ClassTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private int[] prefix;
+		private int[] items;
+		private TidBitmap[] tidLists;
+		private ItemsetCollector collector;
+		
+		ClassTask(int[] prefix, int[] items, TidBitmap[] tidLists, ItemsetCollector collector) {
+			this.prefix = prefix;
+			this.items = items;
+			this.tidLists = tidLists;
+			this.collector = collector;
+		}
+
+		@Override
+		protected void compute() {
+			ArrayList<ClassTask> forked = new ArrayList<ClassTask>();
+			for(int i=0; i<items.length; i++) {
+				int[] itemset = Arrays.copyOf(prefix, prefix.length+1);
+				itemset[prefix.length] = items[i];
+				collect(itemset, tidLists[i].cardinality());
+				if(itemset.length == maxLength)
+					continue;
+				// Equivalence class of the item-set: frequent extensions by the items after it
+				int[] extItems = new int[items.length-i-1];
+				TidBitmap[] extTids = new TidBitmap[extItems.length];
+				int n = 0;
+				for(int j=i+1; j<items.length; j++) {
+					TidBitmap tids = tidLists[i].and(tidLists[j]);
+					if(tids.cardinality() < minSupportCount)
+						continue;
+					extItems[n] = items[j];
+					extTids[n++] = tids;
+				}
+				if(n == 0)
+					continue;
+				ClassTask task = new ClassTask(itemset, Arrays.copyOf(extItems, n), Arrays.copyOf(extTids, n), collector);
+				if(n >= FORK_THRESHOLD) {
+					task.fork();
+					forked.add(task);
+				}
+				else
+					task.compute();
+			}
+			for(ClassTask task : forked)
+				task.join();
+		}
+		
+		private void collect(int[] itemset, int count) {
+			synchronized(collector) {
+				try {
+					collector.collect(itemset, count);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+	}
+}
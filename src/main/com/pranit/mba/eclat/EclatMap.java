@@ -0,0 +1,64 @@
+package com.pranit.mba.eclat;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import com.pranit.mba.utils.ItemDictionary;
+
+/*
+ * Eclat Mapper - convert the horizontal transactions of a split into vertical lists of transaction IDs.
+ * Transactions are numbered from 0 within the split and the IDs of each frequent item are gathered in a compressed bitmap.
+ * Nothing is emitted per transaction; in cleanup() emit <item, tids of item in this split> for each item
+ * and <-1, number of transactions in this split>.
+ */
+
+public class EclatMap extends Mapper<LongWritable, Text, IntWritable, SplitTidsWritable> {
+	
+	private IntWritable item = new IntWritable();
+	private SplitTidsWritable tids_out = new SplitTidsWritable();
+	private ItemDictionary dictionary;
+	private TidBitmap[] tidLists;
+	private String delimiter;
+	private int tid;
+	
+	@Override
+	protected void setup(Context context) throws IOException {
+		Configuration conf = context.getConfiguration();
+		delimiter = conf.get("DELIMITER");
+		dictionary = ItemDictionary.read(conf, conf.get("DICTIONARY_PATH"));
+		tidLists = new TidBitmap[dictionary.size()];
+	}
+	
+	@Override
+	protected void map(LongWritable key, Text value, Context context) {
+		int[] txn = dictionary.encode(value.toString(), delimiter);
+		if(txn.length == 0) // Holds no frequent item; needs no ID
+			return;
+		for(int itm : txn) {
+			if(tidLists[itm] == null)
+				tidLists[itm] = new TidBitmap();
+			tidLists[itm].add(tid);
+		}
+		tid++;
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		int split = context.getTaskAttemptID().getTaskID().getId();
+		item.set(-1);
+		tids_out.set(split, tid, new TidBitmap());
+		context.write(item, tids_out);
+		for(int itm=0; itm<tidLists.length; itm++) {
+			if(tidLists[itm] == null)
+				continue;
+			item.set(itm);
+			tids_out.set(split, tid, tidLists[itm]);
+			context.write(item, tids_out);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.pranit.mba.eclat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import com.pranit.mba.io.ItemsetWritable;
+
+/*
+ * Eclat Reducer (single reducer)
+ * Keys arrive in ascending order, so the transaction counts of all splits under key -1 come first
+ * and give the offset of each split within one global range of transaction IDs.
+ * The bitmaps of each item are then merged into one global bitmap,
+ * and once all items are read the frequent item-sets are mined by bitmap intersection on a fork-join pool.
+ */
+
+public class EclatReduce extends Reducer<IntWritable, SplitTidsWritable, ItemsetWritable, IntWritable> {
+	
+	private ItemsetWritable itemset_out = new ItemsetWritable();
+	private IntWritable count_out = new IntWritable();
+	private TreeMap<Integer, Integer> splitOffsets = new TreeMap<Integer, Integer>();
+	private ArrayList<Integer> items = new ArrayList<Integer>();
+	private ArrayList<TidBitmap> tidLists = new ArrayList<TidBitmap>();
+	private int minSupportCount;
+	private int maxLength;
+	private int threads;
+	
+	@Override
+	protected void setup(Context context) {
+		Configuration conf = context.getConfiguration();
+		minSupportCount = conf.getInt("MIN_SUPPORT_COUNT", 1);
+		maxLength = conf.getInt("MAX_PASS", Integer.MAX_VALUE);
+		threads = conf.getInt("ECLAT_THREADS", Runtime.getRuntime().availableProcessors());
+	}
+	
+	@Override
+	protected void reduce(IntWritable key, Iterable<SplitTidsWritable> values, Context context) {
+		if(key.get() < 0) { // Transaction count of each split
+			TreeMap<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+			for(SplitTidsWritable value : values)
+				counts.put(value.getSplit(), value.getTxnCount());
+			int offset = 0;
+			for(Integer split : counts.keySet()) {
+				splitOffsets.put(split, offset);
+				offset += counts.get(split);
+			}
+			return;
+		}
+		// Transaction IDs of the item per split, merged in order of the splits
+		TreeMap<Integer, TidBitmap> splits = new TreeMap<Integer, TidBitmap>();
+		for(SplitTidsWritable value : values)
+			splits.put(value.getSplit(), value.getTids());
+		TidBitmap tids = new TidBitmap();
+		for(Integer split : splits.keySet()) {
+			int offset = splitOffsets.get(split);
+			splits.get(split).forEach(tid -> tids.add(offset + tid));
+		}
+		if(tids.cardinality() < minSupportCount)
+			return;
+		items.add(key.get());
+		tidLists.add(tids);
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		int[] frequentItems = new int[items.size()];
+		for(int i=0; i<frequentItems.length; i++)
+			frequentItems[i] = items.get(i);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			Eclat eclat = new Eclat(minSupportCount, maxLength, pool);
+			eclat.mine(frequentItems, tidLists.toArray(new TidBitmap[tidLists.size()]), (itemset, count) -> {
+				itemset_out.set(itemset);
+				count_out.set(count);
+				context.write(itemset_out, count_out); // Write <frequent_itemset, count>
+			});
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.pranit.mba.eclat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/*
+ * Transaction IDs of one item within one input split, numbered from 0 within that split.
+ * The record for the reserved item -1 carries no IDs, only the number of transactions in the split,
+ * which the reducer uses to shift the IDs of each split into one global range.
+ */
+
+public class SplitTidsWritable implements Writable {
+	
+	private int split;
+	private int txnCount;
+	private TidBitmap tids = new TidBitmap();
+	
+	public void set(int split, int txnCount, TidBitmap tids) {
+		this.split = split;
+		this.txnCount = txnCount;
+		this.tids = tids;
+	}
+	
+	public int getSplit() {
+		return split;
+	}
+	
+	public int getTxnCount() {
+		return txnCount;
+	}
+	
+	public TidBitmap getTids() {
+		return tids;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, split);
+		WritableUtils.writeVInt(out, txnCount);
+		tids.write(out);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		split = WritableUtils.readVInt(in);
+		txnCount = WritableUtils.readVInt(in);
+		tids = new TidBitmap();
+		tids.readFields(in);
+	}
+}
@@ -0,0 +1,241 @@
+package com.pranit.mba.eclat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/*
+ * Compressed bitmap of transaction IDs in the style of a Roaring bitmap.
+ * The 32 bit ID space is split into chunks of 65536 IDs by the high 16 bits, and each non empty chunk is stored
+ * as a sorted array of the low 16 bits while it holds at most 4096 IDs, or as a plain bitset of 1024 words beyond that.
+ * Sparse items therefore cost 2 bytes per transaction and dense items 1 bit per transaction.
+ * 
+ * IDs must be added in ascending order, which is how transactions are numbered while they are read.
+ */
+
+public class TidBitmap implements Writable {
+	
+	private static final int ARRAY_MAX = 4096;
+	private static final int WORDS = 1024;
+	
+	private char[] keys = new char[4]; // High 16 bits of each chunk, ascending
+	private char[][] arrays = new char[4][]; // Low 16 bits of an array chunk, or null for a bitset chunk
+	private long[][] bitsets = new long[4][]; // Bits of a bitset chunk, or null for an array chunk
+	private int[] cardinalities = new int[4];
+	private int size; // Number of chunks
+	private int cardinality;
+	
+	// Number of transaction IDs in the bitmap
+	
+	public int cardinality() {
+		return cardinality;
+	}
+	
+	// Append a transaction ID, which must be larger than every ID already present
+	
+	public void add(int tid) {
+		char key = (char)(tid >>> 16);
+		char low = (char)tid;
+		if(size == 0 || keys[size-1] != key) {
+			if(size > 0 && keys[size-1] > key)
+				throw new IllegalArgumentException("Transaction IDs must be added in ascending order");
+			appendChunk(key, new char[8], null, 0);
+		}
+		int c = size-1;
+		int card = cardinalities[c];
+		if(arrays[c] != null) {
+			if(card > 0 && arrays[c][card-1] >= low)
+				throw new IllegalArgumentException("Transaction IDs must be added in ascending order");
+			if(card < ARRAY_MAX) {
+				if(card == arrays[c].length)
+					arrays[c] = Arrays.copyOf(arrays[c], Math.min(ARRAY_MAX, card*2));
+				arrays[c][card] = low;
+			}
+			else { // Chunk has grown dense; switch to a bitset
+				bitsets[c] = toBitset(arrays[c], card);
+				arrays[c] = null;
+				bitsets[c][low >>> 6] |= 1L << low;
+			}
+		}
+		else
+			bitsets[c][low >>> 6] |= 1L << low;
+		cardinalities[c]++;
+		cardinality++;
+	}
+	
+	// Return a new bitmap of the transaction IDs present in both bitmaps
+	
+	public TidBitmap and(TidBitmap other) {
+		TidBitmap result = new TidBitmap();
+		int i = 0, j = 0;
+		while(i < size && j < other.size) {
+			if(keys[i] < other.keys[j])
+				i++;
+			else if(keys[i] > other.keys[j])
+				j++;
+			else {
+				result.appendIntersection(keys[i], this, i, other, j);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+	
+	private void appendIntersection(char key, TidBitmap a, int i, TidBitmap b, int j) {
+		char[] arrA = a.arrays[i], arrB = b.arrays[j];
+		int cardA = a.cardinalities[i], cardB = b.cardinalities[j];
+		if(arrA != null && arrB != null) {
+			char[] out = new char[Math.min(cardA, cardB)];
+			int n = 0, x = 0, y = 0;
+			while(x < cardA && y < cardB) {
+				if(arrA[x] < arrB[y])
+					x++;
+				else if(arrA[x] > arrB[y])
+					y++;
+				else {
+					out[n++] = arrA[x];
+					x++;
+					y++;
+				}
+			}
+			if(n > 0)
+				appendChunk(key, out, null, n);
+		}
+		else if(arrA != null || arrB != null) {
+			char[] arr = arrA != null ? arrA : arrB;
+			int card = arrA != null ? cardA : cardB;
+			long[] bits = arrA != null ? b.bitsets[j] : a.bitsets[i];
+			char[] out = new char[card];
+			int n = 0;
+			for(int x=0; x<card; x++) {
+				char v = arr[x];
+				if((bits[v >>> 6] & (1L << v)) != 0)
+					out[n++] = v;
+			}
+			if(n > 0)
+				appendChunk(key, out, null, n);
+		}
+		else {
+			long[] bitsA = a.bitsets[i], bitsB = b.bitsets[j];
+			long[] out = new long[WORDS];
+			int n = 0;
+			for(int w=0; w<WORDS; w++) {
+				out[w] = bitsA[w] & bitsB[w];
+				n += Long.bitCount(out[w]);
+			}
+			if(n == 0)
+				return;
+			if(n <= ARRAY_MAX)
+				appendChunk(key, toArray(out, n), null, n);
+			else
+				appendChunk(key, null, out, n);
+		}
+	}
+	
+	// Call the consumer for every transaction ID in ascending order
+	
+	public void forEach(IntConsumer consumer) {
+		for(int c=0; c<size; c++) {
+			int high = keys[c] << 16;
+			if(arrays[c] != null) {
+				for(int x=0; x<cardinalities[c]; x++)
+					consumer.accept(high | arrays[c][x]);
+			}
+			else {
+				for(int w=0; w<WORDS; w++) {
+					long word = bitsets[c][w];
+					while(word != 0) {
+						consumer.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+						word &= word - 1;
+					}
+				}
+			}
+		}
+	}
+	
+	private void appendChunk(char key, char[] array, long[] bitset, int card) {
+		if(size == keys.length) {
+			int capacity = size*2;
+			keys = Arrays.copyOf(keys, capacity);
+			arrays = Arrays.copyOf(arrays, capacity);
+			bitsets = Arrays.copyOf(bitsets, capacity);
+			cardinalities = Arrays.copyOf(cardinalities, capacity);
+		}
+		keys[size] = key;
+		arrays[size] = array;
+		bitsets[size] = bitset;
+		cardinalities[size] = card;
+		size++;
+		cardinality += card;
+	}
+	
+	private static long[] toBitset(char[] array, int card) {
+		long[] bits = new long[WORDS];
+		for(int x=0; x<card; x++)
+			bits[array[x] >>> 6] |= 1L << array[x];
+		return bits;
+	}
+	
+	private static char[] toArray(long[] bits, int card) {
+		char[] array = new char[card];
+		int n = 0;
+		for(int w=0; w<WORDS; w++) {
+			long word = bits[w];
+			while(word != 0) {
+				array[n++] = (char)((w << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return array;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, size);
+		for(int c=0; c<size; c++) {
+			out.writeChar(keys[c]);
+			WritableUtils.writeVInt(out, arrays[c] != null ? cardinalities[c] : -cardinalities[c]); // Negative for a bitset
+			if(arrays[c] != null) {
+				for(int x=0; x<cardinalities[c]; x++)
+					out.writeChar(arrays[c][x]);
+			}
+			else {
+				for(int w=0; w<WORDS; w++)
+					out.writeLong(bitsets[c][w]);
+			}
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		int n = WritableUtils.readVInt(in);
+		keys = new char[Math.max(n, 4)];
+		arrays = new char[keys.length][];
+		bitsets = new long[keys.length][];
+		cardinalities = new int[keys.length];
+		size = 0;
+		cardinality = 0;
+		for(int c=0; c<n; c++) {
+			char key = in.readChar();
+			int card = WritableUtils.readVInt(in);
+			if(card >= 0) {
+				char[] array = new char[Math.max(card, 8)];
+				for(int x=0; x<card; x++)
+					array[x] = in.readChar();
+				appendChunk(key, array, null, card);
+			}
+			else {
+				long[] bits = new long[WORDS];
+				for(int w=0; w<WORDS; w++)
+					bits[w] = in.readLong();
+				appendChunk(key, null, bits, -card);
+			}
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.pranit.mba.fpgrowth;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+import com.pranit.mba.utils.ItemsetCollector;
+
+/*
+ * FP-Growth - mine all frequent item-sets from an FP-Tree without generating Candidates.
+ * For each frequent item of the tree, starting from the least frequent one, the item-set formed by that item
+ * and the current suffix is frequent, and the conditional FP-Tree of the item is mined recursively
+ * with the extended suffix. A tree made of one single path is not recursed into;
+ * every combination of the nodes on that path is a frequent item-set by itself.
+ */
+
+public class FPGrowth {
+	
+	private int minSupportCount;
+	private int maxLength; // Largest size of item-sets to mine, same as the maximum number of passes of Apriori
+	
+	public FPGrowth(int minSupportCount, int maxLength) {
+		this.minSupportCount = minSupportCount;
+		this.maxLength = maxLength;
+	}
+	
+	// Mine all frequent item-sets of the tree
+	
+	public void mine(FPTree tree, ItemsetCollector collector) throws IOException, InterruptedException {
+		mine(tree, item -> true, collector);
+	}
+	
+	/*
+	 * Mine only those frequent item-sets of the tree whose largest item ID is accepted by the filter.
+	 * Used by Parallel FP-Growth where each group of items is mined by a different reducer.
+	 */
+	
+	public void mine(FPTree tree, IntPredicate filter, ItemsetCollector collector) throws IOException, InterruptedException {
+		if(maxLength < 1)
+			return;
+		mine(tree, new int[maxLength], 0, filter, collector);
+	}
+	
+	private void mine(FPTree tree, int[] suffix, int suffixLen, IntPredicate filter, ItemsetCollector collector) throws IOException, InterruptedException {
+		int[] path = tree.singlePath();
+		if(path != null) {
+			minePath(tree, path, suffix, suffixLen, filter, collector);
+			return;
+		}
+		for(int itm=tree.getNumItems()-1; itm>=0; itm--) {
+			int support = tree.getSupport(itm);
+			if(support < minSupportCount || !filter.test(itm))
+				continue;
+			suffix[suffixLen] = itm;
+			collector.collect(sorted(suffix, suffixLen+1), support);
+			if(suffixLen+1 == maxLength)
+				continue;
+			FPTree condTree = tree.conditionalTree(itm, minSupportCount);
+			if(!condTree.isEmpty())
+				mine(condTree, suffix, suffixLen+1, item -> true, collector);
+		}
+	}
+	
+	/*
+	 * Emit every combination of the nodes on a single path along with the suffix.
+	 * Counts never increase going down a path, so the count of a combination is the count of it's deepest node,
+	 * which also holds the largest item ID of the combination.
+	 */
+	
+	private void minePath(FPTree tree, int[] path, int[] suffix, int suffixLen, IntPredicate filter, ItemsetCollector collector) throws IOException, InterruptedException {
+		int n = 0;
+		while(n < path.length && tree.getCount(path[n]) >= minSupportCount)
+			n++;
+		for(int deepest=0; deepest<n; deepest++) {
+			if(!filter.test(tree.getItem(path[deepest])))
+				continue;
+			suffix[suffixLen] = tree.getItem(path[deepest]);
+			combine(tree, path, deepest-1, tree.getCount(path[deepest]), suffix, suffixLen+1, collector);
+		}
+	}
+	
+	// Extend the suffix with every subset of the nodes path[0..last] that keeps the item-set within the maximum size
+	
+	private void combine(FPTree tree, int[] path, int last, int count, int[] suffix, int suffixLen, ItemsetCollector collector) throws IOException, InterruptedException {
+		collector.collect(sorted(suffix, suffixLen), count);
+		if(suffixLen == maxLength)
+			return;
+		for(int i=last; i>=0; i--) {
+			suffix[suffixLen] = tree.getItem(path[i]);
+			combine(tree, path, i-1, count, suffix, suffixLen+1, collector);
+		}
+	}
+	
+	private static int[] sorted(int[] suffix, int length) {
+		int[] itemset = Arrays.copyOf(suffix, length);
+		Arrays.sort(itemset);
+		return itemset;
+	}
+}
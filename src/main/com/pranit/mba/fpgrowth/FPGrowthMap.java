@@ -0,0 +1,59 @@
+package com.pranit.mba.fpgrowth;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.utils.ItemDictionary;
+
+/*
+ * Parallel FP-Growth (PFP) Mapper
+ * Frequent items are split into G groups by their ID (group = ID mod G).
+ * For each encoded transaction say {a,b,c,d} sorted by ID, walking from the last item to the first,
+ * the first time an item of group g is seen emit <g, prefix of the transaction up to that item>.
+ * Each reducer then holds every prefix path it needs to mine the item-sets ending with an item of it's group.
+ * With a single group every whole transaction goes to one reducer, which is plain FP-Growth.
+ */
+
+public class FPGrowthMap extends Mapper<LongWritable, Text, IntWritable, ItemsetWritable> {
+	
+	private IntWritable group = new IntWritable();
+	private ItemsetWritable prefix = new ItemsetWritable();
+	private ItemDictionary dictionary;
+	private String delimiter;
+	private int groups;
+	private boolean[] emitted; // Groups already emitted for the current transaction
+	
+	@Override
+	protected void setup(Context context) throws IOException {
+		Configuration conf = context.getConfiguration();
+		delimiter = conf.get("DELIMITER");
+		groups = conf.getInt("FP_GROUPS", 1);
+		dictionary = ItemDictionary.read(conf, conf.get("DICTIONARY_PATH"));
+		emitted = new boolean[groups];
+	}
+	
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		int[] txn = dictionary.encode(value.toString(), delimiter);
+		if(txn.length == 0)
+			return;
+		for(int j=txn.length-1; j>=0; j--) {
+			int g = txn[j] % groups;
+			if(emitted[g])
+				continue;
+			emitted[g] = true;
+			group.set(g);
+			prefix.set(j == txn.length-1 ? txn : Arrays.copyOf(txn, j+1));
+			context.write(group, prefix); // Emit <group, prefix> pair
+		}
+		for(int itm : txn)
+			emitted[itm % groups] = false;
+	}
+}
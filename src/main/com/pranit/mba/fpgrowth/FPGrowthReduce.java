@@ -0,0 +1,48 @@
+package com.pranit.mba.fpgrowth;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import com.pranit.mba.io.ItemsetWritable;
+
+/*
+ * Parallel FP-Growth (PFP) Reducer
+ * Build the local FP-Tree of a group from the prefix paths received and mine from it
+ * all frequent item-sets whose largest item ID belongs to the group, so every item-set is found by exactly one group.
+ */
+
+public class FPGrowthReduce extends Reducer<IntWritable, ItemsetWritable, ItemsetWritable, IntWritable> {
+	
+	private ItemsetWritable itemset_out = new ItemsetWritable();
+	private IntWritable count_out = new IntWritable();
+	private int minSupportCount;
+	private int maxLength;
+	private int groups;
+	private int numItems;
+	
+	@Override
+	protected void setup(Context context) {
+		Configuration conf = context.getConfiguration();
+		minSupportCount = conf.getInt("MIN_SUPPORT_COUNT", 1);
+		maxLength = conf.getInt("MAX_PASS", Integer.MAX_VALUE);
+		groups = conf.getInt("FP_GROUPS", 1);
+		numItems = conf.getInt("ITEM_COUNT", 0);
+	}
+	
+	@Override
+	protected void reduce(IntWritable key, Iterable<ItemsetWritable> values, Context context) throws IOException, InterruptedException {
+		int group = key.get();
+		FPTree tree = new FPTree(numItems);
+		for(ItemsetWritable prefix : values)
+			tree.add(prefix.get(), prefix.size(), 1);
+		FPGrowth fpGrowth = new FPGrowth(minSupportCount, maxLength);
+		fpGrowth.mine(tree, item -> item % groups == group, (itemset, count) -> {
+			itemset_out.set(itemset);
+			count_out.set(count);
+			context.write(itemset_out, count_out); // Write <frequent_itemset, count>
+		});
+	}
+}
@@ -0,0 +1,149 @@
+package com.pranit.mba.fpgrowth;
+
+import java.util.Arrays;
+
+/*
+ * FP-Tree (Frequent Pattern Tree) over item IDs.
+ * Transactions are inserted as sorted item-sets, and since the Item Dictionary assigns smaller IDs to more frequent items
+ * ascending ID order is the descending frequency order which makes the tree share as many prefixes as possible.
+ * 
+ * Nodes are kept in parallel arrays instead of objects, node 0 is the root.
+ * Each item has a header entry pointing to the chain of all nodes of that item, linked through nodeLink.
+ */
+
+public class FPTree {
+	
+	private int[] item, count, parent, firstChild, nextSibling, nodeLink;
+	private int nodes = 1;
+	private int[] head; // First node of the chain for each item
+	private int[] support; // Total count of each item in the tree
+	private int numItems;
+	
+	// Create an empty tree for items with IDs 0 to numItems-1
+	
+	public FPTree(int numItems) {
+		this.numItems = numItems;
+		head = new int[numItems];
+		Arrays.fill(head, -1);
+		support = new int[numItems];
+		int capacity = 64;
+		item = new int[capacity];
+		count = new int[capacity];
+		parent = new int[capacity];
+		firstChild = new int[capacity];
+		nextSibling = new int[capacity];
+		nodeLink = new int[capacity];
+		item[0] = -1;
+		parent[0] = -1;
+		firstChild[0] = -1;
+		nextSibling[0] = -1;
+	}
+	
+	public int getNumItems() {
+		return numItems;
+	}
+	
+	// Total count of the item across all paths of the tree
+	
+	public int getSupport(int itm) {
+		return support[itm];
+	}
+	
+	public boolean isEmpty() {
+		return nodes == 1;
+	}
+	
+	// Insert the first length items of a sorted item-set, occurring cnt times
+	
+	public void add(int[] itemset, int length, int cnt) {
+		int node = 0;
+		for(int i=0; i<length; i++) {
+			int itm = itemset[i];
+			int child = firstChild[node];
+			while(child >= 0 && item[child] != itm)
+				child = nextSibling[child];
+			if(child < 0)
+				child = newNode(itm, node);
+			count[child] += cnt;
+			support[itm] += cnt;
+			node = child;
+		}
+	}
+	
+	private int newNode(int itm, int parentNode) {
+		if(nodes == item.length) {
+			int capacity = nodes*2;
+			item = Arrays.copyOf(item, capacity);
+			count = Arrays.copyOf(count, capacity);
+			parent = Arrays.copyOf(parent, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			nextSibling = Arrays.copyOf(nextSibling, capacity);
+			nodeLink = Arrays.copyOf(nodeLink, capacity);
+		}
+		int node = nodes++;
+		item[node] = itm;
+		count[node] = 0;
+		parent[node] = parentNode;
+		firstChild[node] = -1;
+		nextSibling[node] = firstChild[parentNode];
+		firstChild[parentNode] = node;
+		nodeLink[node] = head[itm];
+		head[itm] = node;
+		return node;
+	}
+	
+	/*
+	 * Build the conditional FP-Tree of an item from it's conditional pattern base,
+	 * i.e. the prefix paths of all the nodes of that item, keeping only items frequent within those paths.
+	 * All items on a prefix path have smaller IDs than the item itself.
+	 */
+	
+	public FPTree conditionalTree(int itm, int minSupportCount) {
+		int[] condSupport = new int[itm];
+		for(int node=head[itm]; node>=0; node=nodeLink[node]) {
+			int c = count[node];
+			for(int p=parent[node]; p>0; p=parent[p])
+				condSupport[item[p]] += c;
+		}
+		FPTree tree = new FPTree(itm);
+		int[] path = new int[itm];
+		for(int node=head[itm]; node>=0; node=nodeLink[node]) {
+			int n = 0;
+			for(int p=parent[node]; p>0; p=parent[p]) {
+				if(condSupport[item[p]] >= minSupportCount)
+					path[n++] = item[p];
+			}
+			if(n == 0)
+				continue;
+			// Walking up the tree gives descending IDs; reverse to insert in ascending order
+			for(int i=0, j=n-1; i<j; i++, j--) {
+				int tmp = path[i];
+				path[i] = path[j];
+				path[j] = tmp;
+			}
+			tree.add(path, n, count[node]);
+		}
+		return tree;
+	}
+	
+	// Return the nodes of the tree from the top if it consists of one single path, otherwise null
+	
+	public int[] singlePath() {
+		int n = 0;
+		int[] path = new int[nodes-1];
+		for(int node=firstChild[0]; node>=0; node=firstChild[node]) {
+			if(nextSibling[node] >= 0)
+				return null;
+			path[n++] = node;
+		}
+		return n == path.length ? path : null;
+	}
+	
+	public int getItem(int node) {
+		return item[node];
+	}
+	
+	public int getCount(int node) {
+		return count[node];
+	}
+}
@@ -0,0 +1,115 @@
+package com.pranit.mba.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/*
+ * Compact binary store for the state of the Apriori Algorithm passed from the Reducers of each Pass to the Driver.
+ * Every Reducer of Pass K writes the frequent item-sets of it's own partition as one part of level K,
+ * and the Driver reads all the parts of the level back as a single level:
+ *
+ * level-K-r-NNNNN:  MAGIC | VERSION | K | N | item-set block (N*K item IDs) | counts block (N Support Counts)
+ *
+ * All values are 4 byte big endian integers, so a part is read with a single bulk copy of each block.
+ * Parts are kept in HDFS, so the Driver sees them whichever node the Reducers ran on.
+ */
+
+public class AprioriStateStore {
+
+	private static final int MAGIC = 0x4D424153; // "MBAS"
+	private static final int VERSION = 1;
+	private static final int HEADER_INTS = 4;
+
+	private Configuration conf;
+
+	public AprioriStateStore(Configuration conf) {
+		this.conf = conf;
+	}
+
+	// Name of the part of level K written by the Reducer of the given partition
+
+	public static String partName(int k, int partition) {
+		return String.format("level-%d-r-%05d", k, partition);
+	}
+
+	// Write the item-sets of one part of a level along with their counts
+
+	public void writeLevel(Path file, ItemsetLevel level) throws IOException {
+		FileSystem fs = file.getFileSystem(conf);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fs.create(file, true), 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(level.getK());
+		out.writeInt(level.size());
+		int[] items = level.items();
+		for(int i=0; i<level.size()*level.getK(); i++)
+			out.writeInt(items[i]);
+		int[] counts = level.counts();
+		for(int i=0; i<level.size(); i++)
+			out.writeInt(counts[i]);
+		out.close();
+	}
+
+	/*
+	 * Read all the item-sets of size K and their counts from the parts of level K in the directory.
+	 * Parts are concatenated in the order of their partitions.
+	 */
+
+	public ItemsetLevel readLevel(Path dir, int k) throws IOException {
+		FileSystem fs = dir.getFileSystem(conf);
+		String prefix = "level-"+k+"-";
+		ArrayList<FileStatus> parts = new ArrayList<FileStatus>();
+		for(FileStatus status : fs.listStatus(dir)) {
+			if(status.isFile() && status.getPath().getName().startsWith(prefix))
+				parts.add(status);
+		}
+		if(parts.isEmpty())
+			throw new IOException("No part of level "+k+" of the Apriori state in "+dir);
+		parts.sort((s1, s2) -> s1.getPath().getName().compareTo(s2.getPath().getName()));
+		long total = 0; // Every item-set takes K IDs and a count after the header of it's part
+		for(FileStatus status : parts)
+			total += Math.max(0, status.getLen()/4 - HEADER_INTS) / (k+1);
+		int n = 0;
+		int[] items = new int[(int)total*k];
+		int[] counts = new int[(int)total];
+		for(FileStatus status : parts) {
+			IntBuffer buffer = readFile(fs, status);
+			if(buffer.remaining() < HEADER_INTS || buffer.get() != MAGIC)
+				throw new IOException("Not an Apriori state file: "+status.getPath());
+			int version = buffer.get();
+			if(version != VERSION)
+				throw new IOException("Unsupported version "+version+" of state file "+status.getPath());
+			int size = buffer.get();
+			if(size != k)
+				throw new IOException("State file "+status.getPath()+" holds item-sets of size "+size);
+			int partSize = buffer.get();
+			if(buffer.remaining() != partSize*(k+1))
+				throw new IOException("State file "+status.getPath()+" is truncated");
+			buffer.get(items, n*k, partSize*k);
+			buffer.get(counts, n, partSize);
+			n += partSize;
+		}
+		return new ItemsetLevel(k, n, items, counts);
+	}
+
+	private static IntBuffer readFile(FileSystem fs, FileStatus status) throws IOException {
+		byte[] bytes = new byte[(int)status.getLen()];
+		FSDataInputStream in = fs.open(status.getPath());
+		try {
+			in.readFully(0, bytes);
+		} finally {
+			in.close();
+		}
+		return ByteBuffer.wrap(bytes).asIntBuffer();
+	}
+}
@@ -0,0 +1,78 @@
+package com.pranit.mba.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/*
+ * Candidates of one Pass of Apriori, generated once by the Driver and shipped read only to every Mapper
+ * through the distributed cache, so no task has to generate them again.
+ *
+ * candidates-K:  MAGIC | VERSION | K | N | item-set block (N*K item IDs)
+ *
+ * All values are 4 byte big endian integers like the files of the AprioriStateStore; the Candidates are kept
+ * in the order the Driver generated them.
+ */
+
+public class CandidateFile {
+
+	private static final int MAGIC = 0x4D424143; // "MBAC"
+	private static final int VERSION = 1;
+	private static final int HEADER_INTS = 4;
+
+	// Write the Candidates of size K to HDFS
+
+	public static void write(Configuration conf, String filePath, int k, List<int[]> candidates) throws IOException {
+		FileSystem hdfs = FileSystem.get(conf);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(hdfs.create(new Path(filePath), true), 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(k);
+		out.writeInt(candidates.size());
+		for(int[] candidate : candidates) {
+			for(int item : candidate)
+				out.writeInt(item);
+		}
+		out.close();
+	}
+
+	// Read the Candidates from a file of the local File System, e.g. the copy placed in the working directory of a task
+
+	public static ArrayList<int[]> read(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			IntBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+			if(buffer.remaining() < HEADER_INTS || buffer.get() != MAGIC)
+				throw new IOException("Not a Candidate file: "+file);
+			int version = buffer.get();
+			if(version != VERSION)
+				throw new IOException("Unsupported version "+version+" of Candidate file "+file);
+			int k = buffer.get();
+			int n = buffer.get();
+			if(buffer.remaining() != n*k)
+				throw new IOException("Candidate file "+file+" is truncated");
+			int[] items = new int[n*k];
+			buffer.get(items);
+			ArrayList<int[]> candidates = new ArrayList<int[]>(n);
+			for(int i=0; i<n; i++) {
+				int[] candidate = new int[k];
+				System.arraycopy(items, i*k, candidate, 0, k);
+				candidates.add(candidate);
+			}
+			return candidates;
+		} finally {
+			raf.close();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.pranit.mba.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * All item-sets of one size K along with their Support Counts, stored flat.
+ * Item-set i occupies items[i*K] to items[i*K+K-1] and it's count is counts[i].
+ */
+
+public class ItemsetLevel {
+	
+	private int k;
+	private int size;
+	private int[] items;
+	private int[] counts;
+	
+	public ItemsetLevel(int k, int size, int[] items, int[] counts) {
+		this.k = k;
+		this.size = size;
+		this.items = items;
+		this.counts = counts;
+	}
+	
+	// Build a level from a list of item-sets of size K and their counts in the same order
+	
+	public static ItemsetLevel of(int k, List<int[]> itemsets, int[] counts) {
+		int[] items = new int[itemsets.size()*k];
+		for(int i=0; i<itemsets.size(); i++)
+			System.arraycopy(itemsets.get(i), 0, items, i*k, k);
+		return new ItemsetLevel(k, itemsets.size(), items, counts);
+	}
+	
+	public int getK() {
+		return k;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	// Return a copy of the i-th item-set
+	
+	public int[] get(int i) {
+		return Arrays.copyOfRange(items, i*k, i*k+k);
+	}
+	
+	public int getCount(int i) {
+		return counts[i];
+	}
+	
+	// Return all the item-sets of this level as a list
+	
+	public ArrayList<int[]> toList() {
+		ArrayList<int[]> list = new ArrayList<int[]>(size);
+		for(int i=0; i<size; i++)
+			list.add(get(i));
+		return list;
+	}
+	
+	int[] items() {
+		return items;
+	}
+	
+	int[] counts() {
+		return counts;
+	}
+}
@@ -0,0 +1,122 @@
+package com.pranit.mba.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Item-set of dense item IDs sorted in ascending order.
+ * Serialized as the number of items followed by each item ID, all as variable length integers,
+ * which keeps the shuffle far smaller than the comma joined item names used before.
+ * The registered raw Comparator sorts the serialized bytes directly without deserializing the keys.
+ */
+
+public class ItemsetWritable implements WritableComparable<ItemsetWritable> {
+	
+	private int[] items = Itemsets.EMPTY;
+	
+	public ItemsetWritable() {
+	}
+	
+	public ItemsetWritable(int[] items) {
+		this.items = items;
+	}
+	
+	public void set(int[] items) {
+		this.items = items;
+	}
+	
+	public int[] get() {
+		return items;
+	}
+	
+	public int size() {
+		return items.length;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, items.length);
+		for(int item : items)
+			WritableUtils.writeVInt(out, item);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		int n = WritableUtils.readVInt(in);
+		items = new int[n]; // Always a fresh array, callers are free to keep a reference to it
+		for(int i=0; i<n; i++)
+			items[i] = WritableUtils.readVInt(in);
+	}
+
+	@Override
+	public int compareTo(ItemsetWritable other) {
+		return Itemsets.compare(items, other.items);
+	}
+	
+	@Override
+	public boolean equals(Object other) {
+		if(!(other instanceof ItemsetWritable))
+			return false;
+		return Arrays.equals(items, ((ItemsetWritable)other).items);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(items);
+	}
+	
+	@Override
+	public String toString() {
+		return Itemsets.toString(items);
+	}
+	
+	/*
+	 * Compare two serialized item-sets in the same order as Itemsets.compare by decoding the item IDs in place.
+	 * Variable length integers do not sort as unsigned bytes, so each ID is decoded but no object is created.
+	 */
+	
+	public static int compareRaw(byte[] b1, int s1, byte[] b2, int s2) {
+		try {
+			int n1 = WritableComparator.readVInt(b1, s1);
+			int n2 = WritableComparator.readVInt(b2, s2);
+			s1 += WritableUtils.decodeVIntSize(b1[s1]);
+			s2 += WritableUtils.decodeVIntSize(b2[s2]);
+			int n = Math.min(n1, n2);
+			for(int i=0; i<n; i++) {
+				int item1 = WritableComparator.readVInt(b1, s1);
+				int item2 = WritableComparator.readVInt(b2, s2);
+				if(item1 != item2)
+					return item1 < item2 ? -1 : 1;
+				s1 += WritableUtils.decodeVIntSize(b1[s1]);
+				s2 += WritableUtils.decodeVIntSize(b2[s2]);
+			}
+			return n1 - n2;
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+	
+	public static class Comparator extends WritableComparator {
+		
+		public Comparator() {
+			super(ItemsetWritable.class);
+		}
+		
+		@Override
+		public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+			return compareRaw(b1, s1, b2, s2);
+		}
+	}
+	
+	static {
+		WritableComparator.define(ItemsetWritable.class, new Comparator());
+	}
+}
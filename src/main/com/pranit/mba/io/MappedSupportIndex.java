@@ -0,0 +1,136 @@
+package com.pranit.mba.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.pranit.mba.utils.Itemsets;
+import com.pranit.mba.utils.SupportIndex;
+
+/*
+ * Read only index of all frequent item-sets shipped to every task as a single binary file and memory mapped.
+ * Item-sets are grouped by size K and sorted within each group, so a lookup is a binary search over one group
+ * comparing the IDs in place; loading the index copies nothing onto the heap.
+ *
+ * freq-index:  MAGIC | VERSION | MAXK | N1 .. NMAXK | group of size 1 | ... | group of size MAXK
+ *
+ * where the group of size K holds NK records of K item IDs followed by the Support Count.
+ * All values are 4 byte big endian integers like the files of the AprioriStateStore.
+ */
+
+public class MappedSupportIndex implements SupportIndex {
+
+	private static final int MAGIC = 0x4D424649; // "MBFI"
+	private static final int VERSION = 1;
+
+	private IntBuffer buffer;
+	private int[] starts; // Position of the first record of the group of size K at index K
+	private int[] sizes; // Number of records of size K at index K
+	private int size;
+
+	private MappedSupportIndex(IntBuffer buffer, int[] starts, int[] sizes, int size) {
+		this.buffer = buffer;
+		this.starts = starts;
+		this.sizes = sizes;
+		this.size = size;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int get(int[] itemset) {
+		int k = itemset.length;
+		if(k == 0 || k >= sizes.length)
+			return -1;
+		int lo = 0, hi = sizes[k] - 1;
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int record = starts[k] + mid*(k+1);
+			int c = 0;
+			for(int i=0; c == 0 && i<k; i++)
+				c = Integer.compare(buffer.get(record+i), itemset[i]);
+			if(c == 0)
+				return buffer.get(record+k);
+			if(c < 0)
+				lo = mid + 1;
+			else
+				hi = mid - 1;
+		}
+		return -1;
+	}
+
+	// Write the index of the given item-sets and their Support Counts to HDFS
+
+	public static void write(Configuration conf, String filePath, Map<ItemsetWritable, Integer> itemsets) throws IOException {
+		ArrayList<ArrayList<int[]>> groups = new ArrayList<ArrayList<int[]>>();
+		for(ItemsetWritable itemset : itemsets.keySet()) {
+			while(groups.size() <= itemset.size())
+				groups.add(new ArrayList<int[]>());
+			groups.get(itemset.size()).add(itemset.get());
+		}
+		FileSystem hdfs = FileSystem.get(conf);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(hdfs.create(new Path(filePath), true), 1 << 16));
+		int maxK = Math.max(groups.size()-1, 0);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(maxK);
+		for(int k=1; k<=maxK; k++)
+			out.writeInt(groups.get(k).size());
+		ItemsetWritable key = new ItemsetWritable();
+		for(int k=1; k<=maxK; k++) {
+			ArrayList<int[]> group = groups.get(k);
+			group.sort(Itemsets::compare);
+			for(int[] itemset : group) {
+				for(int item : itemset)
+					out.writeInt(item);
+				key.set(itemset);
+				out.writeInt(itemsets.get(key));
+			}
+		}
+		out.close();
+	}
+
+	// Memory map an index file of the local File System, e.g. the copy placed in the working directory of a task
+
+	public static MappedSupportIndex open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			IntBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer(); // Mapping stays valid after close
+			if(buffer.remaining() < 3 || buffer.get(0) != MAGIC)
+				throw new IOException("Not a frequent item-set index: "+file);
+			int version = buffer.get(1);
+			if(version != VERSION)
+				throw new IOException("Unsupported version "+version+" of frequent item-set index "+file);
+			int maxK = buffer.get(2);
+			int[] starts = new int[maxK+1];
+			int[] sizes = new int[maxK+1];
+			int pos = 3 + maxK, size = 0;
+			for(int k=1; k<=maxK; k++) {
+				sizes[k] = buffer.get(2+k);
+				starts[k] = pos;
+				pos += sizes[k]*(k+1);
+				size += sizes[k];
+			}
+			if(pos != buffer.limit())
+				throw new IOException("Frequent item-set index "+file+" is truncated");
+			return new MappedSupportIndex(buffer, starts, sizes, size);
+		} finally {
+			raf.close();
+		}
+	}
+}
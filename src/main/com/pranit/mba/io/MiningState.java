@@ -0,0 +1,179 @@
+package com.pranit.mba.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.pranit.mba.utils.ItemDictionary;
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * State of a run kept in HDFS for incremental mining of the next run: everything mined so far is counted over
+ * all the transactions read by all the runs, so that the next run only has to count the new transactions.
+ *
+ * meta:      TRANSACTIONS <count>, MIN_SUPPORT_COUNT and MAX_PASS of the run
+ *            and one INPUT <path> line for each input data-set read so far
+ * items:     <item name, count> of every item seen, frequent or not; the line number is the state ID of the item
+ * itemsets:  <item-set of state IDs, count> of the frequent item-sets of size > 1 and of their negative border,
+ *            i.e. the infrequent item-sets all of whose subsets are frequent, as far as their counts are known
+ *
+ * Item-sets are kept by state IDs since the Item Dictionary of the next run may assign different IDs.
+ * Any item-set of up to MAX_PASS items which is not listed has a count below MIN_SUPPORT_COUNT.
+ */
+
+public class MiningState {
+
+	private int txnCount;
+	private int minSupportCount;
+	private int maxPass;
+	private List<String> inputs;
+	private LinkedHashMap<String, Integer> items;
+	private HashMap<ItemsetWritable, Integer> itemsets; // Keyed by state IDs
+
+	private MiningState(int txnCount, int minSupportCount, int maxPass, List<String> inputs, LinkedHashMap<String, Integer> items, HashMap<ItemsetWritable, Integer> itemsets) {
+		this.txnCount = txnCount;
+		this.minSupportCount = minSupportCount;
+		this.maxPass = maxPass;
+		this.inputs = inputs;
+		this.items = items;
+		this.itemsets = itemsets;
+	}
+
+	/*
+	 * State of a run from the counts of all the items and the counts of the frequent and negative border item-sets,
+	 * the latter of item IDs of the dictionary of the run. Item-sets of a single item are kept as items only.
+	 */
+
+	public static MiningState of(int txnCount, int minSupportCount, int maxPass, List<String> inputs, Map<String, Integer> itemCounts, ItemDictionary dictionary, Map<ItemsetWritable, Integer> itemsetCounts) {
+		LinkedHashMap<String, Integer> items = new LinkedHashMap<String, Integer>(itemCounts);
+		HashMap<String, Integer> stateIds = new HashMap<String, Integer>();
+		for(String item : items.keySet())
+			stateIds.put(item, stateIds.size());
+		HashMap<ItemsetWritable, Integer> itemsets = new HashMap<ItemsetWritable, Integer>();
+		for(Entry<ItemsetWritable, Integer> pair : itemsetCounts.entrySet()) {
+			int[] ids = pair.getKey().get();
+			if(ids.length < 2)
+				continue;
+			int[] state = new int[ids.length];
+			for(int i=0; i<ids.length; i++)
+				state[i] = stateIds.get(dictionary.getName(ids[i]));
+			itemsets.put(new ItemsetWritable(Itemsets.sortedDistinct(state, state.length)), pair.getValue());
+		}
+		return new MiningState(txnCount, minSupportCount, maxPass, new ArrayList<String>(inputs), items, itemsets);
+	}
+
+	public int getTransactionCount() {
+		return txnCount;
+	}
+
+	public int getMinSupportCount() {
+		return minSupportCount;
+	}
+
+	public int getMaxPass() {
+		return maxPass;
+	}
+
+	public List<String> getInputs() {
+		return inputs;
+	}
+
+	// Counts of all the items seen, by item name
+
+	public Map<String, Integer> getItemCounts() {
+		return items;
+	}
+
+	/*
+	 * Counts of the item-sets translated into the IDs of the given dictionary.
+	 * Item-sets holding an item which is not in the dictionary, i.e. no longer frequent, are left out.
+	 */
+
+	public HashMap<ItemsetWritable, Integer> getItemsetCounts(ItemDictionary dictionary) {
+		int[] ids = new int[items.size()];
+		int n = 0;
+		for(String item : items.keySet())
+			ids[n++] = dictionary.getId(item);
+		HashMap<ItemsetWritable, Integer> result = new HashMap<ItemsetWritable, Integer>();
+		for(Entry<ItemsetWritable, Integer> pair : itemsets.entrySet()) {
+			int[] state = pair.getKey().get();
+			int[] itemset = new int[state.length];
+			boolean frequent = true;
+			for(int i=0; frequent && i<state.length; i++) {
+				itemset[i] = ids[state[i]];
+				frequent = itemset[i] >= 0;
+			}
+			if(frequent)
+				result.put(new ItemsetWritable(Itemsets.sortedDistinct(itemset, itemset.length)), pair.getValue());
+		}
+		return result;
+	}
+
+	public void write(Configuration conf, String dirPath) throws IOException {
+		FileSystem hdfs = FileSystem.get(conf);
+		BufferedWriter out = new BufferedWriter(new OutputStreamWriter(hdfs.create(new Path(dirPath, "meta"), true)));
+		out.write("TRANSACTIONS\t"+txnCount+"\n");
+		out.write("MIN_SUPPORT_COUNT\t"+minSupportCount+"\n");
+		out.write("MAX_PASS\t"+maxPass+"\n");
+		for(String input : inputs)
+			out.write("INPUT\t"+input+"\n");
+		out.close();
+		out = new BufferedWriter(new OutputStreamWriter(hdfs.create(new Path(dirPath, "items"), true)));
+		for(Entry<String, Integer> pair : items.entrySet())
+			out.write(pair.getKey()+"\t"+pair.getValue()+"\n");
+		out.close();
+		out = new BufferedWriter(new OutputStreamWriter(hdfs.create(new Path(dirPath, "itemsets"), true)));
+		for(Entry<ItemsetWritable, Integer> pair : itemsets.entrySet())
+			out.write(pair.getKey()+"\t"+pair.getValue()+"\n");
+		out.close();
+	}
+
+	public static MiningState read(Configuration conf, String dirPath) throws IOException {
+		FileSystem hdfs = FileSystem.get(conf);
+		int txnCount = 0, minSupportCount = 0, maxPass = 0;
+		ArrayList<String> inputs = new ArrayList<String>();
+		for(String[] pair : readPairs(hdfs, new Path(dirPath, "meta"))) {
+			if(pair[0].equals("TRANSACTIONS"))
+				txnCount = Integer.parseInt(pair[1]);
+			else if(pair[0].equals("MIN_SUPPORT_COUNT"))
+				minSupportCount = Integer.parseInt(pair[1]);
+			else if(pair[0].equals("MAX_PASS"))
+				maxPass = Integer.parseInt(pair[1]);
+			else if(pair[0].equals("INPUT"))
+				inputs.add(pair[1]);
+		}
+		LinkedHashMap<String, Integer> items = new LinkedHashMap<String, Integer>();
+		for(String[] pair : readPairs(hdfs, new Path(dirPath, "items")))
+			items.put(pair[0], Integer.parseInt(pair[1]));
+		HashMap<ItemsetWritable, Integer> itemsets = new HashMap<ItemsetWritable, Integer>();
+		for(String[] pair : readPairs(hdfs, new Path(dirPath, "itemsets")))
+			itemsets.put(new ItemsetWritable(Itemsets.parse(pair[0])), Integer.parseInt(pair[1]));
+		return new MiningState(txnCount, minSupportCount, maxPass, inputs, items, itemsets);
+	}
+
+	// Lines of <key \t value> split at the last tab, since item names may hold any other character
+
+	private static List<String[]> readPairs(FileSystem hdfs, Path file) throws IOException {
+		ArrayList<String[]> pairs = new ArrayList<String[]>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(hdfs.open(file)));
+		String line = null;
+		while((line = in.readLine()) != null && line.length() > 0) {
+			int tab = line.lastIndexOf('\t');
+			pairs.add(new String[] { line.substring(0, tab), line.substring(tab+1) });
+		}
+		in.close();
+		return pairs;
+	}
+}
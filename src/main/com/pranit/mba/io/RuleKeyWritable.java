@@ -0,0 +1,95 @@
+package com.pranit.mba.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Key of a Rule in the Rule Aggregation job: the consequent item-set and the Lift of the Rule.
+ * Serialized as the consequent in the format of ItemsetWritable followed by the Lift as 8 bytes,
+ * so the Lift of a serialized key is always found in it's last 8 bytes.
+ * Keys sort by consequent and then by Lift in descending order; the registered raw Comparator does the same on the bytes.
+ */
+
+public class RuleKeyWritable implements WritableComparable<RuleKeyWritable> {
+	
+	private ItemsetWritable consequent = new ItemsetWritable();
+	private double lift;
+	
+	public RuleKeyWritable() {
+	}
+	
+	public void set(int[] consequent, double lift) {
+		this.consequent.set(consequent);
+		this.lift = lift;
+	}
+	
+	public int[] getConsequent() {
+		return consequent.get();
+	}
+	
+	public double getLift() {
+		return lift;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		consequent.write(out);
+		out.writeDouble(lift);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		consequent.readFields(in);
+		lift = in.readDouble();
+	}
+
+	@Override
+	public int compareTo(RuleKeyWritable other) {
+		int c = consequent.compareTo(other.consequent);
+		if(c == 0)
+			return (-1) * Double.compare(lift, other.lift); // Sort in descending order by Lift
+		return c;
+	}
+	
+	@Override
+	public boolean equals(Object other) {
+		if(!(other instanceof RuleKeyWritable))
+			return false;
+		return compareTo((RuleKeyWritable)other) == 0;
+	}
+	
+	@Override
+	public int hashCode() {
+		return consequent.hashCode();
+	}
+	
+	@Override
+	public String toString() {
+		return Itemsets.toString(consequent.get())+"#"+lift;
+	}
+	
+	public static class Comparator extends WritableComparator {
+		
+		public Comparator() {
+			super(RuleKeyWritable.class);
+		}
+		
+		@Override
+		public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+			int c = ItemsetWritable.compareRaw(b1, s1, b2, s2);
+			if(c == 0)
+				return (-1) * Double.compare(readDouble(b1, s1+l1-8), readDouble(b2, s2+l2-8));
+			return c;
+		}
+	}
+	
+	static {
+		WritableComparator.define(RuleKeyWritable.class, new Comparator());
+	}
+}
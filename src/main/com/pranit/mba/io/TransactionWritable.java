@@ -0,0 +1,62 @@
+package com.pranit.mba.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Transaction encoded as it's sorted item IDs, the record of the binary transaction cache.
+ * Serialized as the number of items followed by the first ID and the gaps between consecutive IDs,
+ * all as variable length integers. Frequent items have the smallest IDs, so most gaps fit in a single byte.
+ */
+
+public class TransactionWritable implements Writable {
+	
+	private int[] items = Itemsets.EMPTY;
+	
+	public TransactionWritable() {
+	}
+	
+	public void set(int[] items) {
+		this.items = items;
+	}
+	
+	public int[] get() {
+		return items;
+	}
+	
+	public int size() {
+		return items.length;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, items.length);
+		int prev = 0;
+		for(int item : items) {
+			WritableUtils.writeVInt(out, item - prev);
+			prev = item;
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		int n = WritableUtils.readVInt(in);
+		items = new int[n]; // Always a fresh array, callers are free to keep a reference to it
+		int prev = 0;
+		for(int i=0; i<n; i++) {
+			prev += WritableUtils.readVInt(in);
+			items[i] = prev;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return Itemsets.toString(items);
+	}
+}
@@ -0,0 +1,234 @@
+package com.pranit.mba.local;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.StringTokenizer;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.pranit.mba.eclat.Eclat;
+import com.pranit.mba.eclat.TidBitmap;
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.rules.Rule;
+import com.pranit.mba.rules.RuleAggregator;
+import com.pranit.mba.rules.RuleEvaluator;
+import com.pranit.mba.rules.RuleGenerator;
+import com.pranit.mba.utils.ItemDictionary;
+import com.pranit.mba.utils.Itemsets;
+import com.pranit.mba.utils.HashSupportIndex;
+
+/*
+ * Local Engine - run the whole Market Basket Analysis in a single JVM on the local File System.
+ * No job is submitted and HDFS is not used; the data-set is held in memory and every stage runs on a fork-join pool:
+ * 1. Count the items and build the Item Dictionary
+ * 2. Encode the transactions and turn them into compressed bitmaps of transaction IDs per item
+ * 3. Mine the frequent item-sets with Eclat
+ * 4. Mine and validate the Rules with consequents of any size from every frequent item-set
+ * 5. Remove the redundant Rules per consequent and format the Final Output
+ * The output directory gets the same layout and file formats as the MapReduce jobs write to HDFS.
+ */
+
+public class LocalEngine {
+
+	private String delimiter;
+	private double minSupport;
+	private double minConfidence;
+	private int maxPass;
+	private boolean liftFilter;
+	private ForkJoinPool pool;
+
+	public LocalEngine(String delimiter, double minSupport, double minConfidence, int maxPass, boolean liftFilter, int threads) {
+		this.delimiter = delimiter;
+		this.minSupport = minSupport;
+		this.minConfidence = minConfidence;
+		this.maxPass = maxPass;
+		this.liftFilter = liftFilter;
+		pool = new ForkJoinPool(threads);
+	}
+
+	public void run(String inputPath, String outputDir) throws IOException, InterruptedException {
+		try {
+			List<String> txns = readTransactions(Paths.get(inputPath));
+			int txnCount = txns.size();
+			int minSupportCount = (int)Math.ceil(minSupport * txnCount); // Calculate Absolute Support from threshold Support
+
+			ItemDictionary dictionary = ItemDictionary.build(countItems(txns, minSupportCount));
+			writePairs(Paths.get(outputDir, "item-dictionary", "dict"), dictionary.toMap());
+
+			HashMap<ItemsetWritable, Integer> frequentItemsets = mineFrequentItemsets(txns, dictionary, minSupportCount);
+			writeFrequentItemsets(Paths.get(outputDir, "all-frequent-itemsets"), frequentItemsets, dictionary);
+
+			RuleEvaluator evaluator = new RuleEvaluator(minConfidence, txnCount, liftFilter);
+			List<Rule> rules = mineRules(pool, frequentItemsets, evaluator);
+			writeRules(Paths.get(outputDir, "rule-mining-output", "part-r-00000"), rules);
+			writeFinalOutput(pool, Paths.get(outputDir, "final-output", "part-r-00000"), rules, dictionary);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// Read every line of the input file, or of all the files in the input directory, as one transaction
+
+	private List<String> readTransactions(Path input) throws IOException {
+		List<Path> files = new ArrayList<Path>();
+		if(Files.isDirectory(input)) {
+			try(Stream<Path> list = Files.list(input)) {
+				list.filter(Files::isRegularFile)
+					.filter(p -> !p.getFileName().toString().startsWith(".") && !p.getFileName().toString().startsWith("_"))
+					.sorted()
+					.forEach(files::add);
+			}
+		}
+		else
+			files.add(input);
+		List<String> txns = new ArrayList<String>();
+		for(Path file : files)
+			txns.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+		return txns;
+	}
+
+	// Count each distinct item of every transaction in parallel and keep only the frequent items
+
+	private Map<String, Integer> countItems(List<String> txns, int minSupportCount) throws InterruptedException, ExecutionException {
+		ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<String, Integer>();
+		pool.submit(() -> txns.parallelStream().forEach(txn -> {
+			HashSet<String> seen = new HashSet<String>();
+			StringTokenizer items = new StringTokenizer(txn, delimiter);
+			while(items.hasMoreTokens()) {
+				String itm = ItemDictionary.normalize(items.nextToken());
+				if(!itm.isEmpty() && seen.add(itm))
+					counts.merge(itm, 1, Integer::sum);
+			}
+		})).get();
+		counts.values().removeIf(count -> count < minSupportCount);
+		return counts;
+	}
+
+	/*
+	 * Encode the transactions in parallel, build the bitmap of transaction IDs of every item
+	 * and mine the frequent item-sets from the bitmaps with Eclat on the same pool.
+	 */
+
+	private HashMap<ItemsetWritable, Integer> mineFrequentItemsets(List<String> txns, ItemDictionary dictionary, int minSupportCount) throws IOException, InterruptedException, ExecutionException {
+		int[][] encoded = pool.submit(() -> txns.parallelStream().map(txn -> dictionary.encode(txn, delimiter)).toArray(int[][]::new)).get();
+		TidBitmap[] tidLists = new TidBitmap[dictionary.size()];
+		int[] items = new int[dictionary.size()];
+		for(int itm=0; itm<items.length; itm++) {
+			items[itm] = itm;
+			tidLists[itm] = new TidBitmap();
+		}
+		for(int tid=0; tid<encoded.length; tid++) {
+			for(int itm : encoded[tid])
+				tidLists[itm].add(tid);
+		}
+		HashMap<ItemsetWritable, Integer> frequentItemsets = new HashMap<ItemsetWritable, Integer>();
+		new Eclat(minSupportCount, maxPass, pool).mine(items, tidLists, (itemset, count) -> frequentItemsets.put(new ItemsetWritable(itemset), count));
+		return frequentItemsets;
+	}
+
+	/*
+	 * Mine the Rules of every frequent item-set of size > 1 in parallel, with consequents of any size.
+	 * Measures are rounded the same way as in the output of the Rule Mining job, so the Final Output matches the MapReduce engines.
+	 */
+
+	static List<Rule> mineRules(ForkJoinPool pool, HashMap<ItemsetWritable, Integer> frequentItemsets, RuleEvaluator evaluator) throws InterruptedException, ExecutionException {
+		HashSupportIndex index = new HashSupportIndex();
+		for(Entry<ItemsetWritable, Integer> e : frequentItemsets.entrySet())
+			index.put(e.getKey().get(), e.getValue());
+		RuleGenerator generator = new RuleGenerator(evaluator, index);
+		return pool.submit(() -> frequentItemsets.entrySet().parallelStream()
+				.filter(e -> e.getKey().size() > 1)
+				.flatMap(e -> generator.generate(e.getKey().get(), e.getValue()).stream())
+				.map(rule -> Rule.parse(rule.toString(), rule.measuresToString()))
+				.collect(Collectors.toList())).get();
+	}
+
+	static void writeFrequentItemsets(Path dir, HashMap<ItemsetWritable, Integer> frequentItemsets, ItemDictionary dictionary) throws IOException {
+		Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+		Map<String, Integer> decodedMap = new LinkedHashMap<String, Integer>();
+		// Sort item-sets in descending order of their Support Counts
+		frequentItemsets.entrySet().stream().sorted((e1, e2) -> (-1) * e1.getValue().compareTo(e2.getValue())).forEachOrdered(e -> {
+			map.put(e.getKey().toString(), e.getValue());
+			decodedMap.put(dictionary.decode(e.getKey().get()), e.getValue());
+		});
+		writePairs(dir.resolve("freq-list"), map);
+		writePairs(dir.resolve("freq-list-items"), decodedMap);
+	}
+
+	private void writeRules(Path file, List<Rule> rules) throws IOException {
+		Files.createDirectories(file.getParent());
+		try(BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for(Rule rule : rules) {
+				out.write(rule.toString()+"\t"+rule.measuresToString());
+				out.newLine();
+			}
+		}
+	}
+
+	/*
+	 * Group the Rules by consequent and sort each group by Lift in descending order,
+	 * then remove the redundant Rules and format the remaining ones of every group in parallel.
+	 */
+
+	static void writeFinalOutput(ForkJoinPool pool, Path file, List<Rule> rules, ItemDictionary dictionary) throws IOException, InterruptedException, ExecutionException {
+		TreeMap<int[], List<Rule>> groups = new TreeMap<int[], List<Rule>>(Itemsets::compare);
+		for(Rule rule : rules)
+			groups.computeIfAbsent(rule.getConsequent(), c -> new ArrayList<Rule>()).add(rule);
+		List<List<String>> rows = pool.submit(() -> groups.values().parallelStream().map(group -> {
+			group.sort(Comparator.comparingDouble(Rule::getLift).reversed());
+			boolean[] redundant = RuleAggregator.findRedundantRules(group);
+			List<String> lines = new ArrayList<String>();
+			for(int i=0; i<group.size(); i++) {
+				if(!redundant[i])
+					lines.add(RuleAggregator.formatKey(group.get(i), dictionary)+"\t"+RuleAggregator.formatValue(group.get(i)));
+			}
+			return lines;
+		}).collect(Collectors.toList())).get();
+
+		Files.createDirectories(file.getParent());
+		try(BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write(RuleAggregator.HEADER_KEY+"\t"+RuleAggregator.HEADER_VALUE);
+			out.newLine();
+			out.write("\t");
+			out.newLine();
+			for(List<String> lines : rows) {
+				for(String line : lines) {
+					out.write(line);
+					out.newLine();
+				}
+			}
+		}
+	}
+
+	// Write <key, value> pairs one per line separated by a tab, the same format Utilities writes to HDFS
+
+	static void writePairs(Path file, Map<String, Integer> map) throws IOException {
+		Files.createDirectories(file.getParent());
+		try(BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for(Entry<String, Integer> pair : map.entrySet()) {
+				out.write(pair.getKey()+"\t"+pair.getValue());
+				out.newLine();
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.pranit.mba.local;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+import com.pranit.mba.eclat.Eclat;
+import com.pranit.mba.eclat.TidBitmap;
+import com.pranit.mba.io.ItemsetWritable;
+
+/*
+ * Approximate counts of the frequent item-sets over a sliding window of the latest transactions of a stream,
+ * in bounded memory, in the manner of Lossy Counting with error epsilon.
+ *
+ * The window is split into panes of equal size. When a pane fills up it is mined with Eclat and only it's
+ * item-sets counted at least epsilon * pane size times are kept; the transactions themselves are dropped.
+ * The oldest pane leaves the window when a new one enters. The count of an item-set over the window is the sum
+ * of it's counts in the panes where it was kept, which falls short of it's true count by less than epsilon * window size.
+ * So reporting every item-set whose summed count reaches (min. support - epsilon) * window size misses no frequent item-set,
+ * and every item-set reported has a true Support of at least min. support - epsilon.
+ * An item-set kept in a pane has all it's subsets kept there too, so the summed counts stay closed under subsets.
+ *
+ * Item-sets are sorted arrays of stream IDs handed out by the caller. The window counts the references to each ID,
+ * from the transactions of the pane being filled and from the item-sets of a single item kept in the panes, which any
+ * larger item-set kept in a pane implies. When nothing refers to an ID any more the caller is told, so it can reuse it
+ * and memory stays bounded by the window rather than by the number of distinct items ever seen.
+ */
+
+public class SlidingWindow {
+
+	private int paneSize;
+	private int panes;
+	private int minPaneCount; // Item-sets counted fewer times in a pane are dropped from it
+	private int maxLength;
+	private ForkJoinPool pool;
+
+	private ArrayList<int[]> current = new ArrayList<int[]>(); // Transactions of the pane being filled
+	private ArrayDeque<HashMap<ItemsetWritable, Integer>> summaries = new ArrayDeque<HashMap<ItemsetWritable, Integer>>();
+	private HashMap<ItemsetWritable, Integer> counts = new HashMap<ItemsetWritable, Integer>(); // Sum over all panes in the window
+	private long version; // Incremented whenever the window slides
+	private int[] references = new int[0]; // Number of transactions and panes holding each stream ID
+	private IntConsumer released; // Told of every stream ID no longer referred to
+
+	public SlidingWindow(int windowSize, int panes, double epsilon, int maxLength, ForkJoinPool pool, IntConsumer released) {
+		this.panes = Math.max(1, panes);
+		this.paneSize = Math.max(1, windowSize / this.panes);
+		this.minPaneCount = Math.max(1, (int)Math.ceil(epsilon * paneSize));
+		this.maxLength = maxLength;
+		this.pool = pool;
+		this.released = released;
+	}
+
+	// Add a transaction of stream IDs; mines the pane and slides the window once the pane is full
+
+	public void add(int[] txn) throws IOException, InterruptedException {
+		for(int itm : txn)
+			retain(itm);
+		current.add(txn);
+		if(current.size() < paneSize)
+			return;
+		HashMap<ItemsetWritable, Integer> summary = minePane(current);
+		summaries.addLast(summary);
+		for(Entry<ItemsetWritable, Integer> pair : summary.entrySet()) {
+			counts.merge(pair.getKey(), pair.getValue(), Integer::sum);
+			if(pair.getKey().size() == 1)
+				retain(pair.getKey().get()[0]);
+		}
+		for(int[] dropped : current) { // Released after the summary took hold of the items it keeps
+			for(int itm : dropped)
+				release(itm);
+		}
+		current = new ArrayList<int[]>();
+		if(summaries.size() > panes) {
+			for(Entry<ItemsetWritable, Integer> pair : summaries.removeFirst().entrySet()) {
+				counts.compute(pair.getKey(), (itemset, count) -> count > pair.getValue() ? count - pair.getValue() : null);
+				if(pair.getKey().size() == 1)
+					release(pair.getKey().get()[0]);
+			}
+		}
+		version++;
+	}
+
+	private void retain(int itm) {
+		if(itm >= references.length)
+			references = Arrays.copyOf(references, Math.max(itm+1, references.length*2));
+		references[itm]++;
+	}
+
+	private void release(int itm) {
+		if(--references[itm] == 0)
+			released.accept(itm);
+	}
+
+	// Number of transactions in the window, those of the pane being filled are not counted yet
+
+	public int size() {
+		return summaries.size() * paneSize;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	// Summed counts over the window of every item-set counted at least minCount times
+
+	public HashMap<ItemsetWritable, Integer> getItemsets(int minCount) {
+		HashMap<ItemsetWritable, Integer> result = new HashMap<ItemsetWritable, Integer>();
+		for(Entry<ItemsetWritable, Integer> pair : counts.entrySet()) {
+			if(pair.getValue() >= minCount)
+				result.put(pair.getKey(), pair.getValue());
+		}
+		return result;
+	}
+
+	// Mine the item-sets of a full pane from the bitmaps of transaction IDs of it's items
+
+	private HashMap<ItemsetWritable, Integer> minePane(ArrayList<int[]> txns) throws IOException, InterruptedException {
+		HashMap<Integer, TidBitmap> tids = new HashMap<Integer, TidBitmap>();
+		for(int tid=0; tid<txns.size(); tid++) {
+			for(int itm : txns.get(tid))
+				tids.computeIfAbsent(itm, i -> new TidBitmap()).add(tid);
+		}
+		tids.values().removeIf(bitmap -> bitmap.cardinality() < minPaneCount);
+		int[] items = tids.keySet().stream().mapToInt(Integer::intValue).toArray();
+		Arrays.sort(items);
+		TidBitmap[] tidLists = new TidBitmap[items.length];
+		for(int i=0; i<items.length; i++)
+			tidLists[i] = tids.get(items[i]);
+		HashMap<ItemsetWritable, Integer> summary = new HashMap<ItemsetWritable, Integer>();
+		new Eclat(minPaneCount, maxLength, pool).mine(items, tidLists, (itemset, count) -> summary.put(new ItemsetWritable(itemset), count));
+		return summary;
+	}
+}
@@ -0,0 +1,325 @@
+package com.pranit.mba.local;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.rules.Rule;
+import com.pranit.mba.rules.RuleEvaluator;
+import com.pranit.mba.utils.ItemDictionary;
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Stream Engine - mine a live feed of transactions continuously in a single JVM.
+ * Transactions are read one per line from a file which is followed as it grows, or from the clients of a local socket.
+ * The frequent item-sets of the latest transactions are kept approximately in the SlidingWindow, and at every interval
+ * the Rules of the window are mined and published to the output directory in the layout of the Local Engine:
+ * all-frequent-itemsets/freq-list-items and final-output/part-r-00000, each replaced atomically.
+ * Rules are measured and validated by the same RuleEvaluator as in batch mining, against the size of the window.
+ * Runs until the process is stopped.
+ */
+
+public class StreamEngine {
+
+	private static final long POLL_MILLIS = 500; // Longest wait for a transaction before checking whether to publish
+
+	private String delimiter;
+	private double minSupport;
+	private double minConfidence;
+	private double epsilon;
+	private boolean liftFilter;
+	private long publishMillis;
+	private ForkJoinPool pool;
+	private SlidingWindow window;
+
+	// Stream IDs of the items the window refers to; IDs released by the window are reused
+	private HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	private ArrayList<String> names = new ArrayList<String>();
+	private ArrayDeque<Integer> freeIds = new ArrayDeque<Integer>();
+
+	public StreamEngine(String delimiter, double minSupport, double minConfidence, int maxPass, boolean liftFilter, int windowSize, int panes, double epsilon, int publishSeconds, int threads) {
+		this.delimiter = delimiter;
+		this.minSupport = minSupport;
+		this.minConfidence = minConfidence;
+		this.epsilon = epsilon;
+		this.liftFilter = liftFilter;
+		publishMillis = publishSeconds * 1000L;
+		pool = new ForkJoinPool(threads);
+		window = new SlidingWindow(windowSize, panes, epsilon, maxPass, pool, this::releaseId);
+	}
+
+	// Follow the transactions appended to the input file
+
+	public void tail(String inputPath, String outputDir) throws IOException, InterruptedException {
+		try(LineSource source = new FileSource(Paths.get(inputPath))) {
+			run(source, outputDir);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// Read the transactions sent by the clients of a socket on the loopback address, one client at a time
+
+	public void listen(int port, String outputDir) throws IOException, InterruptedException {
+		try(LineSource source = new SocketSource(port)) {
+			run(source, outputDir);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private void run(LineSource source, String outputDir) throws IOException, InterruptedException {
+		long published = -1; // Version of the window last published
+		long nextPublish = System.currentTimeMillis() + publishMillis;
+		while(true) {
+			String line = source.readLine(POLL_MILLIS);
+			if(line != null) {
+				int[] txn = encode(line);
+				if(txn.length > 0)
+					window.add(txn);
+			}
+			if(System.currentTimeMillis() >= nextPublish) {
+				if(window.getVersion() != published && window.size() > 0) {
+					publish(outputDir);
+					published = window.getVersion();
+				}
+				nextPublish = System.currentTimeMillis() + publishMillis;
+			}
+		}
+	}
+
+	// Encode a raw transaction into a sorted item-set of distinct stream IDs, new items get a free or the next ID
+
+	private int[] encode(String txn) {
+		StringTokenizer items = new StringTokenizer(txn, delimiter);
+		int[] buffer = new int[items.countTokens()];
+		int n = 0;
+		while(items.hasMoreTokens()) {
+			String itm = ItemDictionary.normalize(items.nextToken());
+			if(itm.isEmpty())
+				continue;
+			Integer id = ids.get(itm);
+			if(id == null) {
+				if(freeIds.isEmpty()) {
+					id = names.size();
+					names.add(itm);
+				}
+				else {
+					id = freeIds.pop();
+					names.set(id, itm);
+				}
+				ids.put(itm, id);
+			}
+			buffer[n++] = id;
+		}
+		return Itemsets.sortedDistinct(buffer, n);
+	}
+
+	// Forget an item no transaction or pane of the window holds any more
+
+	private void releaseId(int id) {
+		ids.remove(names.get(id));
+		names.set(id, null);
+		freeIds.push(id);
+	}
+
+	/*
+	 * Mine the Rules of the item-sets of the window and replace the published output.
+	 * The frequent items of the window get an Item Dictionary of their own as in batch mining, so the Rules are
+	 * encoded, ordered and formatted exactly like those of the other engines.
+	 */
+
+	private void publish(String outputDir) throws IOException, InterruptedException {
+		int txnCount = window.size();
+		int minCount = Math.max(1, (int)Math.ceil((minSupport - epsilon) * txnCount));
+		HashMap<ItemsetWritable, Integer> itemsets = window.getItemsets(minCount);
+		HashMap<String, Integer> itemCounts = new HashMap<String, Integer>();
+		for(Entry<ItemsetWritable, Integer> pair : itemsets.entrySet()) {
+			if(pair.getKey().size() == 1)
+				itemCounts.put(names.get(pair.getKey().get()[0]), pair.getValue());
+		}
+		ItemDictionary dictionary = ItemDictionary.build(itemCounts);
+		HashMap<ItemsetWritable, Integer> frequentItemsets = new HashMap<ItemsetWritable, Integer>();
+		for(Entry<ItemsetWritable, Integer> pair : itemsets.entrySet()) {
+			int[] streamIds = pair.getKey().get();
+			int[] itemset = new int[streamIds.length];
+			for(int i=0; i<itemset.length; i++)
+				itemset[i] = dictionary.getId(names.get(streamIds[i]));
+			frequentItemsets.put(new ItemsetWritable(Itemsets.sortedDistinct(itemset, itemset.length)), pair.getValue());
+		}
+		try {
+			List<Rule> rules = LocalEngine.mineRules(pool, frequentItemsets, new RuleEvaluator(minConfidence, txnCount, liftFilter));
+			Path staging = Paths.get(outputDir, "_publishing");
+			LocalEngine.writeFrequentItemsets(staging, frequentItemsets, dictionary);
+			LocalEngine.writeFinalOutput(pool, staging.resolve("part-r-00000"), rules, dictionary);
+			replace(staging.resolve("freq-list-items"), Paths.get(outputDir, "all-frequent-itemsets", "freq-list-items"));
+			replace(staging.resolve("part-r-00000"), Paths.get(outputDir, "final-output", "part-r-00000"));
+			Files.deleteIfExists(staging.resolve("freq-list"));
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	// Readers of the published files see either the old or the new file, never one half written
+
+	private void replace(Path source, Path target) throws IOException {
+		Files.createDirectories(target.getParent());
+		Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/*
+	 * Source of transactions, one per line. Bytes are collected until the newline, so a line arriving in pieces
+	 * is only returned once it is complete.
+	 */
+
+	private static abstract class LineSource implements AutoCloseable {
+
+		private byte[] chunk = new byte[1 << 16];
+		private int chunkPos, chunkLen;
+		private ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+		// Next complete line, or null if none arrived within the timeout
+
+		String readLine(long timeoutMillis) throws IOException, InterruptedException {
+			long deadline = System.currentTimeMillis() + timeoutMillis;
+			while(true) {
+				while(chunkPos < chunkLen) {
+					byte b = chunk[chunkPos++];
+					if(b == '\n') {
+						String result = new String(line.toByteArray(), StandardCharsets.UTF_8);
+						line.reset();
+						return result;
+					}
+					if(b != '\r')
+						line.write(b);
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if(remaining <= 0)
+					return null;
+				chunkPos = 0;
+				chunkLen = read(chunk, (int)remaining);
+			}
+		}
+
+		// Read the next bytes into the buffer, returns 0 if none arrived within the timeout
+
+		protected abstract int read(byte[] buffer, int timeoutMillis) throws IOException, InterruptedException;
+
+		protected boolean hasPartialLine() {
+			return line.size() > 0;
+		}
+
+		protected void discardPartialLine() {
+			line.reset();
+		}
+
+		@Override
+		public abstract void close() throws IOException;
+	}
+
+	/*
+	 * Follow a file like tail -f, reading from it's start.
+	 * Reading starts over from the beginning if the file is truncated or replaced by a shorter one.
+	 */
+
+	private static class FileSource extends LineSource {
+
+		private Path path;
+		private RandomAccessFile file;
+		private long position;
+
+		FileSource(Path path) {
+			this.path = path;
+		}
+
+		@Override
+		protected int read(byte[] buffer, int timeoutMillis) throws IOException, InterruptedException {
+			if(file == null && Files.exists(path))
+				file = new RandomAccessFile(path.toFile(), "r");
+			if(file != null && file.length() < position) {
+				file.close();
+				file = new RandomAccessFile(path.toFile(), "r");
+				position = 0;
+				discardPartialLine();
+			}
+			if(file != null) {
+				file.seek(position);
+				int n = file.read(buffer);
+				if(n > 0) {
+					position += n;
+					return n;
+				}
+			}
+			Thread.sleep(Math.min(50, timeoutMillis)); // Nothing new yet
+			return 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(file != null)
+				file.close();
+		}
+	}
+
+	// Accept the clients of a socket on the loopback address one after another and read their lines
+
+	private static class SocketSource extends LineSource {
+
+		private ServerSocket server;
+		private Socket client;
+
+		SocketSource(int port) throws IOException {
+			server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+		}
+
+		@Override
+		protected int read(byte[] buffer, int timeoutMillis) throws IOException {
+			try {
+				if(client == null) {
+					server.setSoTimeout(timeoutMillis);
+					client = server.accept();
+				}
+				client.setSoTimeout(timeoutMillis);
+				int n = client.getInputStream().read(buffer);
+				if(n >= 0)
+					return n;
+				// Client is done, wait for the next one; it's last line may lack the newline
+				client.close();
+				client = null;
+				if(!hasPartialLine())
+					return 0;
+				buffer[0] = '\n';
+				return 1;
+			} catch (SocketTimeoutException e) {
+				return 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(client != null)
+				client.close();
+			server.close();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.pranit.mba.rules;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import com.pranit.mba.MbaCounters;
+import com.pranit.mba.io.MappedSupportIndex;
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Map side Association Rule Mining, a Map only Job without any shuffle.
+ * The index of all frequent item-sets is shipped once to every Mapper through the distributed cache and memory mapped,
+ * so each Mapper generates and validates the Rules of the frequent item-sets of it's split on it's own
+ * and writes them in the same format as the AssociationRuleMiningReduce.
+ */
+
+public class AssociationRuleMiningIndexMap extends Mapper<LongWritable, Text, Text, Text> {
+	
+	private Text ruleKey = new Text();
+	private Text ruleValue = new Text();
+	private RuleEvaluator evaluator;
+	private RuleGenerator generator;
+	
+	@Override
+	protected void setup(Context context) throws IOException {
+		Configuration conf = context.getConfiguration();
+		double minConfidence = conf.getDouble("MIN_CONFIDENCE", 0.1);
+		int txnCount = conf.getInt("TRANSACTION_COUNT", 1);
+		boolean liftFilter = conf.getBoolean("LIFT_FILTER", true);
+		evaluator = new RuleEvaluator(minConfidence, txnCount, liftFilter);
+		generator = new RuleGenerator(evaluator, MappedSupportIndex.open(localIndex(conf)));
+	}
+	
+	/*
+	 * The distributed cache links the index into the working directory of the task under it's link name.
+	 * If it is not there the index is copied from HDFS to the local File System instead.
+	 */
+	
+	private File localIndex(Configuration conf) throws IOException {
+		File file = new File(conf.get("FREQ_INDEX_LINK"));
+		if(file.exists())
+			return file;
+		file = File.createTempFile("freq-index", null);
+		file.deleteOnExit();
+		FileSystem.get(conf).copyToLocalFile(new Path(conf.get("FREQ_INDEX_PATH")), new Path(file.getAbsolutePath()));
+		return file;
+	}
+	
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		String line = value.toString();
+		int tab = line.indexOf('\t');
+		int[] items = Itemsets.parse(line.substring(0, tab));
+		if(items.length < 2) // Item-sets of a single item have no Rules
+			return;
+		int count = Integer.parseInt(line.substring(tab+1).trim());
+		for(Rule rule : generator.generate(items, count)) {
+			ruleKey.set(rule.toString());
+			ruleValue.set(rule.measuresToString());
+			context.write(ruleKey, ruleValue);
+		}
+	}
+	
+	// Report the outcome of every Rule checked by this task
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		context.getCounter(MbaCounters.RULES_VALID).increment(evaluator.getValidCount());
+		context.getCounter(MbaCounters.RULES_PRUNED_CONFIDENCE).increment(evaluator.getPrunedByConfidence());
+		context.getCounter(MbaCounters.RULES_PRUNED_LIFT).increment(evaluator.getPrunedByLift());
+		context.getCounter(MbaCounters.RULES_PRUNED_REVERSE).increment(evaluator.getPrunedByReverse());
+	}
+}
@@ -1,53 +1,36 @@
 package com.pranit.mba.rules;
 
 import java.io.IOException;
-import java.util.StringTokenizer;
 
+import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
 
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.utils.Itemsets;
+
 /* 
- * For each <itemset,support> pair say <{a,b,c},4> Mapper will emit
- * <{a,b,c},4>
- * <{b,c},{a,b,c;4}>
- * <{a,c},{a,b,c;4}>
- * <{a,b},{a,b,c;4}>
- * Ignore {} braces, it has just been added here to highlight key and value separately.
+ * For each <itemset,support> pair say <{a,b,c},4> Mapper will emit <{a,b,c},4>
+ * so that the Rules of the frequent item-sets are generated across all the reducers.
+ * Item-sets of a single item have no Rules and are not emitted.
+ * Items are the IDs assigned by the Item Dictionary.
  */
 
-public class AssociationRuleMiningMap extends Mapper<LongWritable, Text, Text, Text> {
+public class AssociationRuleMiningMap extends Mapper<LongWritable, Text, ItemsetWritable, IntWritable> {
 	
-	private Text key_out = new Text();
-	private Text val_out = new Text();
+	private ItemsetWritable key_out = new ItemsetWritable();
+	private IntWritable val_out = new IntWritable();
 
 	@Override
 	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-		String[] pair = value.toString().split("\t");
-		String itemset = pair[0].trim();
-		String supportCount = pair[1].trim();
-		StringTokenizer itm = new StringTokenizer(itemset, ",");
-		String[] items = new String[itm.countTokens()];
-		int i = 0;
-		while(itm.hasMoreTokens())
-			items[i++] = itm.nextToken();
-		key_out.set(itemset);
-		val_out.set(supportCount);
+		String line = value.toString();
+		int tab = line.indexOf('\t');
+		int[] items = Itemsets.parse(line.substring(0, tab));
+		if(items.length < 2)
+			return;
+		key_out.set(items);
+		val_out.set(Integer.parseInt(line.substring(tab+1).trim()));
 		context.write(key_out, val_out);
-		
-		if(items.length > 1) {
-            for(String item1 : items) {
-                StringBuilder subsetComboBuilder = new StringBuilder();
-                for (String item2 : items) {
-                    if (!item2.equals(item1)) {
-                    	subsetComboBuilder.append(item2);
-                    	subsetComboBuilder.append(",");
-                    }
-                }
-                key_out.set(subsetComboBuilder.toString().replaceAll(",$", ""));
-                val_out.set(itemset+";"+supportCount);
-                context.write(key_out, val_out);
-            }
-		}
 	}
-}
\ No newline at end of file
+}
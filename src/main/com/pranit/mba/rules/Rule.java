@@ -0,0 +1,78 @@
+package com.pranit.mba.rules;
+
+import com.pranit.mba.utils.ItemDictionary;
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Association Rule X => Y of item IDs along with it's measures Support, Confidence and Lift.
+ * Written by the Rule Mining job as the line  [X] => [Y]	(support, confidence, lift)
+ */
+
+public class Rule {
+	
+	private int[] antecedent;
+	private int[] consequent;
+	private double support;
+	private double confidence;
+	private double lift;
+	
+	public Rule(int[] antecedent, int[] consequent, double support, double confidence, double lift) {
+		this.antecedent = antecedent;
+		this.consequent = consequent;
+		this.support = support;
+		this.confidence = confidence;
+		this.lift = lift;
+	}
+	
+	// Parse a Rule from the key and value written by the Rule Mining job
+	
+	public static Rule parse(String rule, String measures) {
+		String[] sides = rule.split(" => ");
+		String[] values = measures.replaceAll("^\\(| |\\)$", "").split(",");
+		return new Rule(parseItemset(sides[0]), parseItemset(sides[1]), Double.parseDouble(values[0]), Double.parseDouble(values[1]), Double.parseDouble(values[2]));
+	}
+	
+	private static int[] parseItemset(String side) {
+		side = side.trim();
+		return Itemsets.parse(side.substring(1, side.length()-1)); // Strip the [] braces
+	}
+	
+	public int[] getAntecedent() {
+		return antecedent;
+	}
+	
+	public int[] getConsequent() {
+		return consequent;
+	}
+	
+	public double getSupport() {
+		return support;
+	}
+	
+	public double getConfidence() {
+		return confidence;
+	}
+	
+	public double getLift() {
+		return lift;
+	}
+	
+	// Measures as written by the Rule Mining job, e.g. (0.101000, 0.850000, 1.345000)
+	
+	public String measuresToString() {
+		return "("+String.format("%.6f", support)+", "+String.format("%.6f", confidence)+", "+String.format("%.6f", lift)+")";
+	}
+	
+	// Rule with the item IDs decoded into item names, e.g. [ham,turkey] => [olives]
+	
+	public String decode(ItemDictionary dictionary) {
+		return "["+dictionary.decode(antecedent)+"] => ["+dictionary.decode(consequent)+"]";
+	}
+	
+	// Rule of item IDs, e.g. [3,17] => [42]
+	
+	@Override
+	public String toString() {
+		return "["+Itemsets.toString(antecedent)+"] => ["+Itemsets.toString(consequent)+"]";
+	}
+}
@@ -0,0 +1,103 @@
+package com.pranit.mba.rules;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.pranit.mba.utils.ItemDictionary;
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Aggregation of the Rules sharing the same consequent into the Final Output:
+ * removal of the redundant Rules and formatting of each Rule into a row of the output table.
+ */
+
+public final class RuleAggregator {
+	
+	// Formatted header of final output
+	public static final String HEADER_KEY = String.format("\t%-85s", "ASSOCIATION RULE");
+	public static final String HEADER_VALUE = String.format("%-10s", "SUPPORT")+"   "+String.format("%-10s", "CONFIDENCE")+"\t      "+String.format("%-5s", "LIFT");
+	
+	private RuleAggregator() {
+	}
+	
+	// Formatted Rule with the item IDs decoded, the key of a row of the final output
+	
+	public static String formatKey(Rule rule, ItemDictionary dictionary) {
+		return String.format(" %-90s", rule.decode(dictionary));
+	}
+	
+	// Formatted measures of the Rule, the value of a row of the final output
+	
+	public static String formatValue(Rule rule) {
+		double support = rule.getSupport() * 100;
+		double confidence = rule.getConfidence() * 100;
+		double lift = rule.getLift();
+		double liftPercent = (lift - 1.0) * 100;
+		return String.format("%6.2f", support)+"%\t\t"+String.format("%3.0f", confidence)+"%\t  "+String.format("%.3f", lift)+" -> "+String.format("%3.0f", liftPercent)+"%";
+	}
+	
+	/*
+	 * Find the redundant Rules from the antecedent and confidence of these Rules.
+	 * All Rules passed have the same consequent,
+	 * so finding the redundant antecedents is equivalent to finding redundant Rules.
+	 * A Rule is redundant if another Rule with the same confidence has an antecedent which is a proper subset of it's antecedent;
+	 * a larger antecedent with a different confidence adds information and is kept.
+	 * Confidence is compared as written to the output of the Rule Mining job, i.e. to 6 decimals.
+	 * Returns a flag for each Rule in the given order, set if the Rule is redundant.
+	 * 
+	 * Rules are grouped by confidence and only Rules of the same group are compared. Within a group the Rules holding
+	 * each item are indexed, so the super-sets of an antecedent are searched only among the Rules holding
+	 * it's least common item instead of among all the Rules.
+	 */
+	
+	public static boolean[] findRedundantRules(List<Rule> rules) {
+		boolean[] redundant = new boolean[rules.size()]; // Flag the redundant antecedents
+		HashMap<Long, ArrayList<Integer>> groups = new HashMap<Long, ArrayList<Integer>>();
+		for(int i=0; i<rules.size(); i++)
+			groups.computeIfAbsent(Math.round(rules.get(i).getConfidence() * 1e6), c -> new ArrayList<Integer>()).add(i);
+		for(ArrayList<Integer> group : groups.values()) {
+			if(group.size() > 1)
+				markSupersets(rules, group, redundant);
+		}
+		return redundant;
+	}
+	
+	// Flag every Rule of the group whose antecedent is a proper super-set of the antecedent of another Rule of the group
+	
+	private static void markSupersets(List<Rule> rules, ArrayList<Integer> group, boolean[] redundant) {
+		// Index of the Rules of the group holding each item, as positions in the group
+		HashMap<Integer, int[]> postings = new HashMap<Integer, int[]>();
+		HashMap<Integer, Integer> sizes = new HashMap<Integer, Integer>();
+		for(int r : group) {
+			for(int item : rules.get(r).getAntecedent())
+				sizes.merge(item, 1, Integer::sum);
+		}
+		for(int pos=0; pos<group.size(); pos++) {
+			for(int item : rules.get(group.get(pos)).getAntecedent()) {
+				int[] list = postings.get(item);
+				if(list == null) {
+					list = new int[sizes.get(item) + 1]; // Number of positions filled kept in the last slot
+					postings.put(item, list);
+				}
+				list[list[list.length-1]++] = pos;
+			}
+		}
+		
+		for(int pos=0; pos<group.size(); pos++) {
+			int[] subset = rules.get(group.get(pos)).getAntecedent();
+			int[] candidates = null; // Rules holding the least common item of the antecedent
+			for(int item : subset) {
+				int[] list = postings.get(item);
+				if(candidates == null || list.length < candidates.length)
+					candidates = list;
+			}
+			for(int i=0; i<candidates.length-1; i++) {
+				int r = group.get(candidates[i]);
+				int[] superset = rules.get(r).getAntecedent();
+				if(superset.length > subset.length && Itemsets.containsAll(superset, subset))
+					redundant[r] = true; // Mark the super-set (item-set) and thus it's rule as redundant
+			}
+		}
+	}
+}
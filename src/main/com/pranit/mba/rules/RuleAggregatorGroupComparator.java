@@ -1,23 +1,30 @@
 package com.pranit.mba.rules;
 
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.io.WritableComparator;
 
-// Group Rules by Consequent
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.io.RuleKeyWritable;
+import com.pranit.mba.utils.Itemsets;
+
+// Group Rules by Consequent; compares only the serialized consequent at the start of the keys and ignores the Lift
 
 public class RuleAggregatorGroupComparator extends WritableComparator {
 
 	public RuleAggregatorGroupComparator() {
-		super(Text.class, true); // True will enable to create instances
+		super(RuleKeyWritable.class, true); // True will enable to create instances
+	}
+
+	@Override
+	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+		return ItemsetWritable.compareRaw(b1, s1, b2, s2);
 	}
 
 	@SuppressWarnings("rawtypes")
 	@Override
 	public int compare(WritableComparable a, WritableComparable b) {
-		String primaryKeyA = a.toString().split("#")[0];
-        String primaryKeyB = b.toString().split("#")[0];
-        
-        return primaryKeyA.compareTo(primaryKeyB);
+		int[] primaryKeyA = ((RuleKeyWritable)a).getConsequent();
+		int[] primaryKeyB = ((RuleKeyWritable)b).getConsequent();
+		return Itemsets.compare(primaryKeyA, primaryKeyB);
 	}
-}
\ No newline at end of file
+}
@@ -1,15 +1,18 @@
 package com.pranit.mba.rules;
 
+import java.util.Arrays;
+
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Partitioner;
 
+import com.pranit.mba.io.RuleKeyWritable;
+
 // Partition based on Consequent of the Rules
 
-public class RuleAggregatorPartitioner extends Partitioner<Text, Text> {
+public class RuleAggregatorPartitioner extends Partitioner<RuleKeyWritable, Text> {
 
 	@Override
-	public int getPartition(Text key, Text value, int num_partition) {
-		String consequent = key.toString().split("#")[0];
-		return consequent.hashCode() % num_partition;
+	public int getPartition(RuleKeyWritable key, Text value, int num_partition) {
+		return (Arrays.hashCode(key.getConsequent()) & Integer.MAX_VALUE) % num_partition;
 	}
-}
\ No newline at end of file
+}
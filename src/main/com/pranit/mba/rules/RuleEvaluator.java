@@ -0,0 +1,114 @@
+package com.pranit.mba.rules;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Compute the measures of a Rule from Support Counts and validate it by threshold Confidence and optionally by Lift.
+ * 
+ * If X => Y is the Rule obtained then
+ * Rule Support: Support(X+Y)
+ * Antecedent Support: Support(X)
+ * Consequent Support: Support(Y)
+ * Confidence: Support(X+Y) / Support(X)
+ * Lift: Support(X+Y) / (Support(X) * Support(Y))
+ * 
+ * Of a Rule and it's reverse Rule Y => X only one is kept. Both share the same Lift, so if both are valid
+ * the Rule whose antecedent sorts first is kept, which needs no state of the Rules already generated.
+ * Pruning the consequents by isConfident() never skips a valid reverse Rule, so this holds for consequents of any size.
+ * 
+ * The outcome of every check is counted, safely when the evaluator is shared by several threads.
+ */
+
+public class RuleEvaluator {
+	
+	private double minConfidence;
+	private int txnCount;
+	private boolean liftFilter;
+	private LongAdder valid = new LongAdder();
+	private LongAdder prunedByConfidence = new LongAdder();
+	private LongAdder prunedByLift = new LongAdder();
+	private LongAdder prunedByReverse = new LongAdder();
+	
+	public RuleEvaluator(double minConfidence, int txnCount, boolean liftFilter) {
+		this.minConfidence = minConfidence;
+		this.txnCount = txnCount;
+		this.liftFilter = liftFilter;
+	}
+	
+	public double getMinConfidence() {
+		return minConfidence;
+	}
+	
+	/*
+	 * Return the valid Rule antecedent => consequent or null if the Rule is pruned.
+	 * The counts are the Support Counts of the antecedent, the consequent and the item-set made of both.
+	 */
+	
+	public Rule evaluate(int[] antecedent, int antecedentCount, int[] consequent, int consequentCount, int itemsetCount) {
+		double ruleSupport = 1.0*itemsetCount / txnCount;
+		double consequentSupport = 1.0*consequentCount / txnCount;
+		double confidence = confidence(antecedentCount, itemsetCount);
+		double lift = confidence / consequentSupport;
+		
+		// Prune or Validate the Rule obtained
+		if(confidence < minConfidence) {
+			prunedByConfidence.increment();
+			return null;
+		}
+		if(liftFilter && lift <= 1.0) {
+			prunedByLift.increment();
+			return null;
+		}
+		if(isReverseKept(antecedent, consequent, ruleSupport / consequentSupport)) {
+			prunedByReverse.increment();
+			return null; // Avoid reverse rules
+		}
+		valid.increment();
+		return new Rule(antecedent, consequent, ruleSupport, confidence, lift);
+	}
+	
+	/*
+	 * Check whether a Rule passes the threshold Confidence, regardless of it's Lift or reverse Rule.
+	 * Rule generation stops growing a consequent once this fails.
+	 */
+	
+	public boolean isConfident(int antecedentCount, int itemsetCount) {
+		if(confidence(antecedentCount, itemsetCount) >= minConfidence)
+			return true;
+		prunedByConfidence.increment();
+		return false;
+	}
+	
+	public long getValidCount() {
+		return valid.sum();
+	}
+	
+	public long getPrunedByConfidence() {
+		return prunedByConfidence.sum();
+	}
+	
+	public long getPrunedByLift() {
+		return prunedByLift.sum();
+	}
+	
+	public long getPrunedByReverse() {
+		return prunedByReverse.sum();
+	}
+	
+	private double confidence(int antecedentCount, int itemsetCount) {
+		return (1.0*itemsetCount / txnCount) / (1.0*antecedentCount / txnCount);
+	}
+	
+	/*
+	 * Check whether the reverse Rule consequent => antecedent is mined and kept in place of this Rule.
+	 * Consequents of any size are mined, so the reverse Rule is mined whenever it passes the threshold Confidence.
+	 */
+	
+	private boolean isReverseKept(int[] antecedent, int[] consequent, double reverseConfidence) {
+		if(reverseConfidence < minConfidence)
+			return false;
+		return Itemsets.compare(consequent, antecedent) < 0;
+	}
+}
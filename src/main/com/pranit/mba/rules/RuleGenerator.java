@@ -0,0 +1,86 @@
+package com.pranit.mba.rules;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.utils.Itemsets;
+import com.pranit.mba.utils.SupportIndex;
+
+/*
+ * Generate all the valid Rules X => Y of a frequent item-set Z = X+Y, with consequents Y of any size (ap-genrules).
+ *
+ * Confidence of X => Y is Support(Z) / Support(Z-Y), and Support(Z-Y) can only grow as Y grows,
+ * so if X => Y fails the threshold Confidence so does every Rule whose consequent is a super-set of Y.
+ * Consequents are therefore grown one level at a time like the Candidates of Apriori: consequents of size m+1
+ * are joined from the confident consequents of size m and kept only if all their subsets of size m were confident.
+ * Supports of the antecedents and consequents are looked up from the index of all frequent item-sets.
+ */
+
+public class RuleGenerator {
+
+	private RuleEvaluator evaluator;
+	private SupportIndex index;
+
+	public RuleGenerator(RuleEvaluator evaluator, SupportIndex index) {
+		this.evaluator = evaluator;
+		this.index = index;
+	}
+
+	// Return the valid Rules of the item-set with the given Support Count; none for an item-set of a single item
+
+	public List<Rule> generate(int[] itemset, int count) {
+		List<Rule> rules = new ArrayList<Rule>();
+		ArrayList<int[]> consequents = new ArrayList<int[]>(itemset.length);
+		for(int item : itemset)
+			consequents.add(new int[] { item });
+		// Consequent can grow until a single item is left as antecedent
+		while(!consequents.isEmpty() && consequents.get(0).length < itemset.length) {
+			ArrayList<int[]> confident = new ArrayList<int[]>(consequents.size());
+			for(int[] consequent : consequents) {
+				int[] antecedent = Itemsets.minus(itemset, consequent);
+				int antecedentCount = index.get(antecedent);
+				if(!evaluator.isConfident(antecedentCount, count))
+					continue;
+				confident.add(consequent);
+				Rule rule = evaluator.evaluate(antecedent, antecedentCount, consequent, index.get(consequent), count);
+				if(rule != null)
+					rules.add(rule);
+			}
+			consequents = nextConsequents(confident);
+		}
+		return rules;
+	}
+
+	/*
+	 * Join the confident consequents of size m sharing the first m-1 items into consequents of size m+1
+	 * and drop those having a subset of size m that was not confident.
+	 * Consequents are generated in sorted order, so the ones sharing a prefix are contiguous.
+	 */
+
+	private ArrayList<int[]> nextConsequents(ArrayList<int[]> confident) {
+		ArrayList<int[]> next = new ArrayList<int[]>();
+		if(confident.size() < 2)
+			return next;
+		HashSet<ItemsetWritable> lookup = new HashSet<ItemsetWritable>();
+		for(int[] consequent : confident)
+			lookup.add(new ItemsetWritable(consequent));
+		ItemsetWritable subset = new ItemsetWritable();
+		for(int i=0; i<confident.size(); i++) {
+			for(int j=i+1; j<confident.size(); j++) {
+				int[] joined = Itemsets.join(confident.get(i), confident.get(j));
+				if(joined == null) // End of the block sharing the prefix of consequent i
+					break;
+				boolean keep = true;
+				for(int k=0; keep && k<joined.length-2; k++) {
+					subset.set(Itemsets.without(joined, k));
+					keep = lookup.contains(subset);
+				}
+				if(keep)
+					next.add(joined);
+			}
+		}
+		return next;
+	}
+}
@@ -0,0 +1,64 @@
+package com.pranit.mba.rules;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Bounded heap keeping the best K Rules offered to it by a ranking metric: lift, confidence or support.
+ * The worst Rule kept sits at the head of the heap, so a Rule that ranks lower is rejected without being stored
+ * and memory stays at K Rules however many Rules are offered.
+ * Ties on the metric are broken by the consequent and then the antecedent, so the Rules kept never depend on the order offered.
+ */
+
+public class TopRules {
+	
+	private int k;
+	private Comparator<Rule> ranking; // Ascending, the best Rule is the largest
+	private PriorityQueue<Rule> heap;
+	
+	public TopRules(int k, String metric) {
+		this.k = k;
+		ranking = ranking(metric);
+		heap = new PriorityQueue<Rule>(Math.min(k, 1024) + 1, ranking);
+	}
+	
+	public static Comparator<Rule> ranking(String metric) {
+		Comparator<Rule> byMetric;
+		if(metric.equals("lift"))
+			byMetric = Comparator.comparingDouble(Rule::getLift);
+		else if(metric.equals("confidence"))
+			byMetric = Comparator.comparingDouble(Rule::getConfidence);
+		else if(metric.equals("support"))
+			byMetric = Comparator.comparingDouble(Rule::getSupport);
+		else
+			throw new IllegalArgumentException("Unknown ranking metric "+metric+", use lift, confidence or support");
+		// Smaller item-sets first rank higher among equals
+		return byMetric.thenComparing((r1, r2) -> (-1) * Itemsets.compare(r1.getConsequent(), r2.getConsequent()))
+				.thenComparing((r1, r2) -> (-1) * Itemsets.compare(r1.getAntecedent(), r2.getAntecedent()));
+	}
+	
+	public void offer(Rule rule) {
+		if(heap.size() < k)
+			heap.add(rule);
+		else if(ranking.compare(rule, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(rule);
+		}
+	}
+	
+	public int size() {
+		return heap.size();
+	}
+	
+	// Rules kept, best first
+	
+	public List<Rule> sorted() {
+		List<Rule> rules = new ArrayList<Rule>(heap);
+		rules.sort(ranking.reversed());
+		return rules;
+	}
+}
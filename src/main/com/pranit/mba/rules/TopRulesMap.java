@@ -0,0 +1,62 @@
+package com.pranit.mba.rules;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map.Entry;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Top-K Rules instead of the full Rule Aggregation
+ * Each Mapper keeps only the best K Rules of it's split in a bounded heap, one heap per consequent
+ * or a single heap for all the Rules, and emits just those in cleanup as <consequent, rule \t measures>.
+ * All Rules go under the empty item-set as key when ranking globally.
+ */
+
+public class TopRulesMap extends Mapper<LongWritable, Text, ItemsetWritable, Text> {
+	
+	private HashMap<ItemsetWritable, TopRules> heaps = new HashMap<ItemsetWritable, TopRules>();
+	private ItemsetWritable global = new ItemsetWritable(Itemsets.EMPTY);
+	private ItemsetWritable lookup = new ItemsetWritable();
+	private Text value_out = new Text();
+	private int k;
+	private String metric;
+	private boolean perConsequent;
+	
+	@Override
+	protected void setup(Context context) {
+		Configuration conf = context.getConfiguration();
+		k = conf.getInt("TOP_K", 10);
+		metric = conf.get("TOP_K_METRIC", "lift");
+		perConsequent = conf.getBoolean("TOP_K_PER_CONSEQUENT", true);
+	}
+	
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		String[] keyValue = value.toString().split("\t");
+		Rule rule = Rule.parse(keyValue[0], keyValue[1]);
+		lookup.set(perConsequent ? rule.getConsequent() : Itemsets.EMPTY);
+		TopRules heap = heaps.get(lookup);
+		if(heap == null) { // Keys of the map are never modified, a new key is added for each new group
+			heap = new TopRules(k, metric);
+			heaps.put(perConsequent ? new ItemsetWritable(rule.getConsequent()) : global, heap);
+		}
+		heap.offer(rule);
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		for(Entry<ItemsetWritable, TopRules> heap : heaps.entrySet()) {
+			for(Rule rule : heap.getValue().sorted()) {
+				value_out.set(rule.toString()+"\t"+rule.measuresToString());
+				context.write(heap.getKey(), value_out);
+			}
+		}
+	}
+}
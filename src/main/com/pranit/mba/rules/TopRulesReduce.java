@@ -0,0 +1,53 @@
+package com.pranit.mba.rules;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.utils.ItemDictionary;
+
+/*
+ * Merge the best K Rules of every Mapper into the overall best K Rules per consequent, or of all the Rules,
+ * through another bounded heap and write them best first in the format of the Final Output.
+ */
+
+public class TopRulesReduce extends Reducer<ItemsetWritable, Text, Text, Text> {
+	
+	private Text key_out = new Text();
+	private Text value_out = new Text();
+	private ItemDictionary dictionary;
+	private int k;
+	private String metric;
+	
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		Configuration conf = context.getConfiguration();
+		dictionary = ItemDictionary.read(conf, conf.get("DICTIONARY_PATH"));
+		k = conf.getInt("TOP_K", 10);
+		metric = conf.get("TOP_K_METRIC", "lift");
+		// Formatted header of final output; written only once to output file
+		key_out.set(RuleAggregator.HEADER_KEY);
+		value_out.set(RuleAggregator.HEADER_VALUE);
+		context.write(key_out, value_out);
+		key_out.set("");
+		value_out.set("");
+		context.write(key_out, value_out);
+	}
+	
+	@Override
+	protected void reduce(ItemsetWritable key, Iterable<Text> values, Context context) throws IOException, InterruptedException {
+		TopRules heap = new TopRules(k, metric);
+		for(Text value : values) {
+			String[] pair = value.toString().split("\t");
+			heap.offer(Rule.parse(pair[0], pair[1]));
+		}
+		for(Rule rule : heap.sorted()) {
+			key_out.set(RuleAggregator.formatKey(rule, dictionary));
+			value_out.set(RuleAggregator.formatValue(rule));
+			context.write(key_out, value_out);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.pranit.mba.serve;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Consequent recommended for a basket along with the Rule that recommends it
+
+public class Recommendation {
+
+	private List<String> items;
+	private List<String> because; // Antecedent of the Rule, all in the basket
+	private double support;
+	private double confidence;
+	private double lift;
+
+	public Recommendation(List<String> items, List<String> because, double support, double confidence, double lift) {
+		this.items = items;
+		this.because = because;
+		this.support = support;
+		this.confidence = confidence;
+		this.lift = lift;
+	}
+
+	public List<String> getItems() {
+		return items;
+	}
+
+	public List<String> getBecause() {
+		return because;
+	}
+
+	public double getSupport() {
+		return support;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	public double getLift() {
+		return lift;
+	}
+
+	// Members of the JSON object returned by the HTTP endpoint
+
+	public Map<String, Object> toMap() {
+		LinkedHashMap<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("items", items);
+		map.put("because", because);
+		map.put("support", support);
+		map.put("confidence", confidence);
+		map.put("lift", lift);
+		return map;
+	}
+}
@@ -0,0 +1,217 @@
+package com.pranit.mba.serve;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import com.pranit.mba.utils.Json;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Recommendation service - serve the Rules of a mining run from memory, through the Java API or a small HTTP endpoint
+ * on the loopback address.
+ *
+ * GET  /recommend?item=<name>&item=<name>...[&n=N][&metric=lift|confidence]
+ *      best consequents for the basket as a JSON array, each with the Rule recommending it
+ * POST /reload[?dir=<output dir path>]
+ *      load the Rules of the output directory, the current one if not given, and swap them in
+ *
+ * The RuleIndex in use is immutable and replaced as a whole, so a query runs on either the old or the new Rules
+ * and never waits for a reload. A reload which fails leaves the current Rules in place.
+ * With -D mba.serve.reload.seconds=N the output directory is also checked every N seconds and reloaded when it changed.
+ */
+
+public class RecommendationServer extends Configured implements Tool {
+
+	private final static String USAGE = "USAGE %s: <output dir path of a mining run>\n";
+
+	private volatile RuleIndex index;
+	private volatile String outputDir;
+	private volatile long loadedVersion; // Latest modification time of the files the index was loaded from
+	private int defaultCount;
+	private RuleIndex.Metric defaultMetric;
+	private HttpServer server;
+	private ScheduledExecutorService watcher;
+
+	public static void main(String[] args) throws Exception {
+		int exitCode = ToolRunner.run(new RecommendationServer(), args);
+		System.exit(exitCode);
+	}
+
+	@Override
+	public int run(String[] args) throws Exception {
+		if(args.length < 1) {
+			System.err.printf("Invalid arguments!\n"+USAGE, getClass().getName());
+			ToolRunner.printGenericCommandUsage(System.err);
+			return 1;
+		}
+		int port = getConf().getInt("mba.serve.port", 8080);
+		int threads = getConf().getInt("mba.serve.threads", Runtime.getRuntime().availableProcessors());
+		int reloadSeconds = getConf().getInt("mba.serve.reload.seconds", 0);
+		defaultCount = getConf().getInt("mba.serve.top", 10);
+		defaultMetric = RuleIndex.Metric.valueOf(getConf().get("mba.serve.metric", "lift").toUpperCase());
+		reload(args[0]);
+		start(port, threads);
+		if(reloadSeconds > 0)
+			watch(reloadSeconds);
+		System.out.println("Serving "+index.size()+" Rules of "+outputDir+" on http://"+server.getAddress().getHostString()+":"+server.getAddress().getPort()+"/recommend");
+		Thread.currentThread().join(); // Until the process is stopped
+		return 0;
+	}
+
+	public RuleIndex getIndex() {
+		return index;
+	}
+
+	// Replace the Rules in use; queries already running finish on the previous ones
+
+	public void swap(RuleIndex newIndex) {
+		index = newIndex;
+	}
+
+	// Load the Rules of the output directory of a mining run and swap them in
+
+	public synchronized void reload(String dirPath) throws IOException {
+		long version = version(dirPath);
+		swap(RuleIndex.load(getConf(), dirPath));
+		outputDir = dirPath;
+		loadedVersion = version;
+	}
+
+	public List<Recommendation> recommend(List<String> basket, int n, RuleIndex.Metric metric) {
+		return index.recommend(basket, n, metric);
+	}
+
+	// Serve the endpoints on the loopback address, port 0 picks a free port
+
+	public void start(int port, int threads) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/recommend", this::handleRecommend);
+		server.createContext("/reload", this::handleReload);
+		server.setExecutor(Executors.newFixedThreadPool(threads));
+		server.start();
+	}
+
+	public void stop() {
+		if(watcher != null)
+			watcher.shutdownNow();
+		if(server != null)
+			server.stop(0);
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void handleRecommend(HttpExchange exchange) throws IOException {
+		try {
+			if(!exchange.getRequestMethod().equals("GET")) {
+				respond(exchange, 405, error("Use GET"));
+				return;
+			}
+			Map<String, List<String>> params = parseQuery(exchange.getRequestURI().getRawQuery());
+			List<String> basket = params.getOrDefault("item", new ArrayList<String>());
+			int n = params.containsKey("n") ? Integer.parseInt(params.get("n").get(0)) : defaultCount;
+			RuleIndex.Metric metric = params.containsKey("metric") ? RuleIndex.Metric.valueOf(params.get("metric").get(0).toUpperCase()) : defaultMetric;
+			ArrayList<Object> result = new ArrayList<Object>();
+			for(Recommendation recommendation : recommend(basket, n, metric))
+				result.add(recommendation.toMap());
+			respond(exchange, 200, Json.toString(result));
+		} catch (IllegalArgumentException e) { // Bad number or metric
+			respond(exchange, 400, error(e.getMessage()));
+		}
+	}
+
+	private void handleReload(HttpExchange exchange) throws IOException {
+		if(!exchange.getRequestMethod().equals("POST")) {
+			respond(exchange, 405, error("Use POST"));
+			return;
+		}
+		List<String> dir = parseQuery(exchange.getRequestURI().getRawQuery()).get("dir");
+		try {
+			reload(dir != null ? dir.get(0) : outputDir);
+		} catch (IOException e) {
+			respond(exchange, 500, error("Reload failed, still serving "+outputDir+": "+e));
+			return;
+		}
+		LinkedHashMap<String, Object> status = new LinkedHashMap<String, Object>();
+		status.put("dir", outputDir);
+		status.put("rules", index.size());
+		respond(exchange, 200, Json.toString(status));
+	}
+
+	// Reload whenever a file the Rules are loaded from changes
+
+	private void watch(int seconds) {
+		watcher = Executors.newSingleThreadScheduledExecutor();
+		watcher.scheduleWithFixedDelay(() -> {
+			try {
+				if(version(outputDir) != loadedVersion)
+					reload(outputDir);
+			} catch (IOException e) {
+				System.err.println("Reload of "+outputDir+" failed, still serving the previous Rules: "+e);
+			}
+		}, seconds, seconds, TimeUnit.SECONDS);
+	}
+
+	private long version(String dirPath) throws IOException {
+		FileSystem fs = FileSystem.get(getConf());
+		long version = fs.getFileStatus(new Path(dirPath, "item-dictionary/dict")).getModificationTime();
+		for(FileStatus status : fs.listStatus(new Path(dirPath, "rule-mining-output")))
+			version = Math.max(version, status.getModificationTime());
+		return version;
+	}
+
+	private static Map<String, List<String>> parseQuery(String query) {
+		LinkedHashMap<String, List<String>> params = new LinkedHashMap<String, List<String>>();
+		if(query == null)
+			return params;
+		for(String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			if(eq <= 0)
+				continue;
+			try {
+				String key = URLDecoder.decode(pair.substring(0, eq), "UTF-8");
+				String value = URLDecoder.decode(pair.substring(eq+1), "UTF-8");
+				params.computeIfAbsent(key, k -> new ArrayList<String>()).add(value);
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e); // UTF-8 is always supported
+			}
+		}
+		return params;
+	}
+
+	private static String error(String message) {
+		LinkedHashMap<String, Object> body = new LinkedHashMap<String, Object>();
+		body.put("error", message);
+		return Json.toString(body);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try(OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package com.pranit.mba.serve;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.rules.Rule;
+import com.pranit.mba.rules.RuleAggregator;
+import com.pranit.mba.utils.ItemDictionary;
+import com.pranit.mba.utils.Itemsets;
+
+/*
+ * Immutable in-memory index of the mined Rules for answering "what goes with this basket" queries.
+ *
+ * Rules are those of the Final Output: the Rules of the Rule Mining job with the redundant ones removed.
+ * Antecedents and consequents are stored as sorted item IDs packed into flat arrays with offsets, and every Rule
+ * is listed under the least frequent item of it's antecedent, i.e. it's highest ID. A basket then only visits
+ * the Rules listed under it's own items, and a visited Rule applies if the rest of it's antecedent is in the basket too.
+ * Every consequent is ranked by the best Rule applying to the basket, and the best n are kept in a bounded heap.
+ * Nothing is ever modified after the index is built, so any number of threads can query it at once.
+ */
+
+public final class RuleIndex {
+
+	public enum Metric { LIFT, CONFIDENCE }
+
+	private ItemDictionary dictionary;
+	private int[] postingStart; // Rules listed under item i are postings[postingStart[i] .. postingStart[i+1]-1]
+	private int[] postings;
+	private int[] antecedentStart;
+	private int[] antecedentItems;
+	private int[] consequentStart;
+	private int[] consequentItems;
+	private int[] consequentIds; // Dense ID of each distinct consequent, to merge the Rules sharing a consequent
+	private double[] support;
+	private double[] confidence;
+	private double[] lift;
+
+	private RuleIndex() {
+	}
+
+	/*
+	 * Load the Rules and Item Dictionary of a mining run from it's output directory:
+	 * rule-mining-output/part-* and item-dictionary/dict, as written by every batch engine.
+	 */
+
+	public static RuleIndex load(Configuration conf, String outputDir) throws IOException {
+		ItemDictionary dictionary = ItemDictionary.read(conf, outputDir + "/item-dictionary/dict");
+		FileSystem fs = FileSystem.get(conf);
+		ArrayList<Rule> rules = new ArrayList<Rule>();
+		for(FileStatus status : fs.listStatus(new Path(outputDir, "rule-mining-output"))) {
+			String name = status.getPath().getName();
+			if(!status.isFile() || name.startsWith("_") || name.startsWith("."))
+				continue;
+			BufferedReader in = new BufferedReader(new InputStreamReader(fs.open(status.getPath()), StandardCharsets.UTF_8));
+			String line = null;
+			while((line = in.readLine()) != null) {
+				int tab = line.indexOf('\t');
+				if(tab > 0)
+					rules.add(Rule.parse(line.substring(0, tab), line.substring(tab+1)));
+			}
+			in.close();
+		}
+		return build(rules, dictionary);
+	}
+
+	// Index the Rules of item IDs of the dictionary, removing the redundant ones as the Final Output does
+
+	public static RuleIndex build(List<Rule> rules, ItemDictionary dictionary) {
+		TreeMap<int[], List<Rule>> groups = new TreeMap<int[], List<Rule>>(Itemsets::compare);
+		for(Rule rule : rules)
+			groups.computeIfAbsent(rule.getConsequent(), c -> new ArrayList<Rule>()).add(rule);
+		ArrayList<Rule> kept = new ArrayList<Rule>();
+		for(List<Rule> group : groups.values()) {
+			group.sort(Comparator.comparingDouble(Rule::getLift).reversed());
+			boolean[] redundant = RuleAggregator.findRedundantRules(group);
+			for(int i=0; i<group.size(); i++) {
+				if(!redundant[i])
+					kept.add(group.get(i));
+			}
+		}
+
+		RuleIndex index = new RuleIndex();
+		index.dictionary = dictionary;
+		int n = kept.size();
+		index.support = new double[n];
+		index.confidence = new double[n];
+		index.lift = new double[n];
+		index.consequentIds = new int[n];
+		index.antecedentStart = new int[n+1];
+		index.consequentStart = new int[n+1];
+		HashMap<ItemsetWritable, Integer> consequentIds = new HashMap<ItemsetWritable, Integer>();
+		int[] listed = new int[dictionary.size()+1];
+		for(int r=0; r<n; r++) {
+			Rule rule = kept.get(r);
+			index.support[r] = rule.getSupport();
+			index.confidence[r] = rule.getConfidence();
+			index.lift[r] = rule.getLift();
+			index.consequentIds[r] = consequentIds.computeIfAbsent(new ItemsetWritable(rule.getConsequent()), c -> consequentIds.size());
+			index.antecedentStart[r+1] = index.antecedentStart[r] + rule.getAntecedent().length;
+			index.consequentStart[r+1] = index.consequentStart[r] + rule.getConsequent().length;
+			listed[last(rule.getAntecedent())+1]++;
+		}
+		index.antecedentItems = new int[index.antecedentStart[n]];
+		index.consequentItems = new int[index.consequentStart[n]];
+		for(int i=1; i<listed.length; i++)
+			listed[i] += listed[i-1];
+		index.postingStart = Arrays.copyOf(listed, listed.length);
+		index.postings = new int[n];
+		for(int r=0; r<n; r++) {
+			Rule rule = kept.get(r);
+			System.arraycopy(rule.getAntecedent(), 0, index.antecedentItems, index.antecedentStart[r], rule.getAntecedent().length);
+			System.arraycopy(rule.getConsequent(), 0, index.consequentItems, index.consequentStart[r], rule.getConsequent().length);
+			index.postings[listed[last(rule.getAntecedent())]++] = r;
+		}
+		return index;
+	}
+
+	private static int last(int[] itemset) {
+		return itemset[itemset.length-1];
+	}
+
+	public int size() {
+		return support.length;
+	}
+
+	public ItemDictionary getDictionary() {
+		return dictionary;
+	}
+
+	/*
+	 * Best n consequents for the basket of item names, ranked by the metric of the best applicable Rule for each.
+	 * A Rule applies if all of it's antecedent is in the basket; consequents holding an item of the basket are skipped.
+	 * Items not in the dictionary, i.e. not frequent, cannot be in any antecedent and are ignored.
+	 */
+
+	public List<Recommendation> recommend(Collection<String> basket, int n, Metric metric) {
+		int[] buffer = new int[basket.size()];
+		int size = 0;
+		for(String item : basket) {
+			int id = dictionary.getId(ItemDictionary.normalize(item));
+			if(id >= 0)
+				buffer[size++] = id;
+		}
+		return recommend(Itemsets.sortedDistinct(buffer, size), n, metric);
+	}
+
+	// Same for a basket of item IDs, sorted and distinct
+
+	public List<Recommendation> recommend(int[] basket, int n, Metric metric) {
+		double[] score = metric == Metric.LIFT ? lift : confidence;
+		HashMap<Integer, Integer> best = new HashMap<Integer, Integer>(); // Best applicable Rule of each consequent
+		for(int itm : basket) {
+			for(int p=postingStart[itm]; p<postingStart[itm+1]; p++) {
+				int r = postings[p];
+				if(!applies(r, basket))
+					continue;
+				Integer current = best.get(consequentIds[r]);
+				if(current == null || score[r] > score[current] || (score[r] == score[current] && r < current))
+					best.put(consequentIds[r], r);
+			}
+		}
+		// Keep the n best in a bounded heap whose head is the worst kept; ties go to the Rule indexed first
+		Comparator<Integer> worstFirst = Comparator.<Integer>comparingDouble(r -> score[r]).thenComparing(Comparator.reverseOrder());
+		PriorityQueue<Integer> top = new PriorityQueue<Integer>(Math.max(1, n), worstFirst);
+		for(int r : best.values()) {
+			if(top.size() < n)
+				top.add(r);
+			else if(n > 0 && worstFirst.compare(r, top.peek()) > 0) {
+				top.poll();
+				top.add(r);
+			}
+		}
+		ArrayList<Recommendation> result = new ArrayList<Recommendation>(top.size());
+		while(!top.isEmpty()) {
+			int r = top.poll();
+			result.add(new Recommendation(decode(consequentItems, consequentStart[r], consequentStart[r+1]),
+					decode(antecedentItems, antecedentStart[r], antecedentStart[r+1]), support[r], confidence[r], lift[r]));
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	// The antecedent of the Rule is in the basket and none of it's consequent is
+
+	private boolean applies(int r, int[] basket) {
+		for(int i=antecedentStart[r]; i<antecedentStart[r+1]-1; i++) { // Last item is the one the Rule is listed under
+			if(Arrays.binarySearch(basket, antecedentItems[i]) < 0)
+				return false;
+		}
+		for(int i=consequentStart[r]; i<consequentStart[r+1]; i++) {
+			if(Arrays.binarySearch(basket, consequentItems[i]) >= 0)
+				return false;
+		}
+		return true;
+	}
+
+	private List<String> decode(int[] items, int from, int to) {
+		ArrayList<String> names = new ArrayList<String>(to - from);
+		for(int i=from; i<to; i++)
+			names.add(dictionary.getName(items[i]));
+		return names;
+	}
+}
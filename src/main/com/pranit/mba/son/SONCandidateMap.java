@@ -0,0 +1,63 @@
+package com.pranit.mba.son;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import com.pranit.mba.fpgrowth.FPGrowth;
+import com.pranit.mba.fpgrowth.FPTree;
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.utils.ItemDictionary;
+
+/*
+ * SON Phase 1 Mapper - mine the input split locally in memory
+ * Every transaction of the split is added to an in-memory FP-Tree, and in cleanup() the tree is mined with
+ * FP-Growth at the threshold Support scaled to the number of transactions in the split.
+ * Any item-set frequent in the whole data-set is frequent in at least one split at this scaled threshold,
+ * so the local frequent item-sets emitted as <itemset, 1> form a complete list of global Candidates.
+ */
+
+public class SONCandidateMap extends Mapper<LongWritable, Text, ItemsetWritable, IntWritable> {
+	
+	private ItemsetWritable itemset_out = new ItemsetWritable();
+	private final static IntWritable one = new IntWritable(1);
+	private ItemDictionary dictionary;
+	private FPTree tree;
+	private String delimiter;
+	private double minSupport;
+	private int maxLength;
+	private int txnCount; // Number of transactions in this split
+	
+	@Override
+	protected void setup(Context context) throws IOException {
+		Configuration conf = context.getConfiguration();
+		delimiter = conf.get("DELIMITER");
+		minSupport = conf.getDouble("MIN_SUPPORT", 1.0);
+		maxLength = conf.getInt("MAX_PASS", Integer.MAX_VALUE);
+		dictionary = ItemDictionary.read(conf, conf.get("DICTIONARY_PATH"));
+		tree = new FPTree(dictionary.size());
+	}
+	
+	@Override
+	protected void map(LongWritable key, Text value, Context context) {
+		int[] txn = dictionary.encode(value.toString(), delimiter);
+		tree.add(txn, txn.length, 1);
+		txnCount++;
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		int localSupportCount = Math.max(1, (int)Math.ceil(minSupport * txnCount)); // Threshold scaled to this split
+		FPGrowth fpGrowth = new FPGrowth(localSupportCount, maxLength);
+		fpGrowth.mine(tree, (itemset, count) -> {
+			if(itemset.length < 2) // Support of single items is already known from the Item Dictionary
+				return;
+			itemset_out.set(itemset);
+			context.write(itemset_out, one); // Emit <candidate_itemset, 1>
+		});
+	}
+}
@@ -0,0 +1,88 @@
+package com.pranit.mba.son;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import com.pranit.mba.io.ItemsetWritable;
+import com.pranit.mba.utils.CandidateTrie;
+import com.pranit.mba.utils.CountBuffer;
+import com.pranit.mba.utils.ItemDictionary;
+import com.pranit.mba.utils.Itemsets;
+import com.pranit.mba.utils.Utilities;
+
+/*
+ * SON Phase 2 Mapper - count the global Candidates exactly in a single scan
+ * Candidates found in Phase 1 are of various sizes; one prefix Trie is built for each size
+ * and every transaction counts each Candidate it contains.
+ * Counts are combined in a bounded buffer keyed by the position of the Candidate across all Tries
+ * and emitted as <itemset, partial count> whenever the buffer fills up and in cleanup.
+ */
+
+public class SONCountMap extends Mapper<LongWritable, Text, ItemsetWritable, IntWritable> {
+	
+	private ItemsetWritable itemset_out = new ItemsetWritable();
+	private IntWritable count = new IntWritable();
+	private ItemDictionary dictionary;
+	private ArrayList<CandidateTrie> tries = new ArrayList<CandidateTrie>(); // Trie of Candidates of size K at index K
+	private int[] hits;
+	private int[] offsets; // Position of the first Candidate of size K across all Tries at index K
+	private CountBuffer buffer;
+	private String delimiter;
+	
+	@Override
+	protected void setup(Context context) throws IOException {
+		Configuration conf = context.getConfiguration();
+		delimiter = conf.get("DELIMITER");
+		dictionary = ItemDictionary.read(conf, conf.get("DICTIONARY_PATH"));
+		int maxSize = 0;
+		for(String candidate : new Utilities().getDirFromHDFS(conf, conf.get("CANDIDATES_PATH")).keySet()) {
+			int[] itemset = Itemsets.parse(candidate);
+			while(tries.size() <= itemset.length)
+				tries.add(new CandidateTrie());
+			tries.get(itemset.length).add(itemset);
+			maxSize = Math.max(maxSize, tries.get(itemset.length).size());
+		}
+		hits = new int[maxSize];
+		offsets = new int[tries.size()+1];
+		for(int k=0; k<tries.size(); k++)
+			offsets[k+1] = offsets[k] + tries.get(k).size();
+		buffer = new CountBuffer(Math.min(conf.getLong("COMBINE_BUFFER_BYTES", 16L << 20), CountBuffer.bytesFor(offsets[tries.size()])));
+	}
+	
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		int[] txn = dictionary.encode(value.toString(), delimiter);
+		for(int k=2; k<tries.size() && k<=txn.length; k++) {
+			CandidateTrie candidates = tries.get(k);
+			int found = candidates.match(txn, hits);
+			for(int i=0; i<found; i++) {
+				if(buffer.add(offsets[k] + hits[i], 1))
+					flush(context);
+			}
+		}
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		flush(context);
+	}
+	
+	// Emit <itemset, partial count> pair for every Candidate in the buffer
+	
+	private void flush(Context context) throws IOException, InterruptedException {
+		buffer.flush((pos, cnt) -> {
+			int k = 2;
+			while(pos >= offsets[k+1])
+				k++;
+			itemset_out.set(tries.get(k).get(pos - offsets[k]));
+			count.set(cnt);
+			context.write(itemset_out, count);
+		});
+	}
+}
@@ -0,0 +1,35 @@
+package com.pranit.mba.son;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import com.pranit.mba.io.ItemsetWritable;
+
+// SON Phase 2 Reducer - sum up the exact counts of the Candidates and write only the globally frequent item-sets
+
+public class SONCountReduce extends Reducer<ItemsetWritable, IntWritable, ItemsetWritable, IntWritable> {
+	
+	private IntWritable count = new IntWritable();
+	private int minSupportCount;
+	
+	@Override
+	protected void setup(Context context) {
+		Configuration conf = context.getConfiguration();
+		minSupportCount = conf.getInt("MIN_SUPPORT_COUNT", 1);
+	}
+	
+	@Override
+	protected void reduce(ItemsetWritable key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
+		int sum = 0;
+		for(IntWritable value : values)
+			sum += value.get();
+		// Prune by threshold Support Count
+		if(sum < minSupportCount) // Locally frequent only; Discard
+			return;
+		count.set(sum);	
+		context.write(key, count);
+	}
+}
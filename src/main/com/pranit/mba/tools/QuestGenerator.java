@@ -0,0 +1,192 @@
+package com.pranit.mba.tools;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/*
+ * Generator of synthetic transactions in the manner of the IBM Quest generator of Agrawal and Srikant,
+ * which produced the T10I4D100K family of data-sets. Writes one transaction per line, the items being numbers
+ * separated by the delimiter, so the output is read like any other data-set.
+ *
+ * A set of patterns, the potentially frequent item-sets, is drawn first. Pattern lengths follow a Poisson distribution
+ * around the average pattern length; each pattern shares an exponentially distributed fraction of it's items with
+ * the previous one and draws the rest from the items, uniformly or with Zipf like skew. Every pattern gets an
+ * exponentially distributed weight and a corruption level around 0.5.
+ * A transaction gets a Poisson distributed length around the average basket length and is filled with patterns picked
+ * by weight, dropping items from each pattern while a random draw stays below it's corruption level.
+ * A pattern which does not fit is added anyway half of the time, otherwise it starts the next transaction.
+ *
+ * Options, set with -D:
+ * mba.quest.items             number of items N (1000)
+ * mba.quest.basket            average basket length T (10)
+ * mba.quest.patterns          number of patterns L (2000)
+ * mba.quest.pattern.length    average pattern length I (4)
+ * mba.quest.skew              Zipf exponent of the popularity of items, 0 for uniform (0)
+ * mba.quest.correlation       mean fraction of items a pattern shares with the previous one (0.5)
+ * mba.quest.delimiter         item delimiter (,)
+ * mba.quest.seed              seed of the random numbers (0)
+ */
+
+public class QuestGenerator extends Configured implements Tool {
+
+	private final static String USAGE = "USAGE %s: <output file path> <transaction count>\n";
+
+	private Random random;
+	private double[] itemWeights; // Cumulative popularity of the items
+	private int[][] patterns;
+	private double[] patternWeights; // Cumulative weight of the patterns
+	private double[] corruption;
+	private int[] carried; // Pattern which did not fit into the previous transaction
+
+	public static void main(String[] args) throws Exception {
+		int exitCode = ToolRunner.run(new QuestGenerator(), args);
+		System.exit(exitCode);
+	}
+
+	@Override
+	public int run(String[] args) throws Exception {
+		if(args.length < 2) {
+			System.err.printf("Invalid arguments!\n"+USAGE, getClass().getName());
+			ToolRunner.printGenericCommandUsage(System.err);
+			return 1;
+		}
+		long txnCount = Long.parseLong(args[1]);
+		int itemCount = getConf().getInt("mba.quest.items", 1000);
+		double avgBasket = getConf().getDouble("mba.quest.basket", 10);
+		int patternCount = getConf().getInt("mba.quest.patterns", 2000);
+		double avgPattern = getConf().getDouble("mba.quest.pattern.length", 4);
+		double skew = getConf().getDouble("mba.quest.skew", 0);
+		double correlation = getConf().getDouble("mba.quest.correlation", 0.5);
+		String delimiter = getConf().get("mba.quest.delimiter", ",");
+		random = new Random(getConf().getLong("mba.quest.seed", 0));
+
+		drawItems(itemCount, skew);
+		drawPatterns(patternCount, avgPattern, correlation);
+		Path file = new Path(args[0]);
+		FileSystem fs = file.getFileSystem(getConf());
+		BufferedWriter out = new BufferedWriter(new OutputStreamWriter(fs.create(file, true), StandardCharsets.UTF_8), 1 << 20);
+		StringBuilder line = new StringBuilder();
+		for(long t=0; t<txnCount; t++) {
+			int[] txn = nextTransaction(avgBasket);
+			line.setLength(0);
+			for(int i=0; i<txn.length; i++) {
+				if(i > 0)
+					line.append(delimiter);
+				line.append(txn[i]);
+			}
+			line.append('\n');
+			out.write(line.toString());
+		}
+		out.close();
+		return 0;
+	}
+
+	// Popularity of item i is proportional to 1/(i+1)^skew
+
+	private void drawItems(int itemCount, double skew) {
+		itemWeights = new double[itemCount];
+		double total = 0;
+		for(int i=0; i<itemCount; i++) {
+			total += Math.pow(i+1, -skew);
+			itemWeights[i] = total;
+		}
+	}
+
+	private void drawPatterns(int patternCount, double avgPattern, double correlation) {
+		patterns = new int[patternCount][];
+		patternWeights = new double[patternCount];
+		corruption = new double[patternCount];
+		double total = 0;
+		int[] previous = new int[0];
+		for(int p=0; p<patternCount; p++) {
+			int length = Math.min(itemWeights.length, Math.max(1, poisson(avgPattern)));
+			ArrayList<Integer> items = new ArrayList<Integer>(length);
+			int shared = Math.min(previous.length, (int)Math.round(Math.min(1.0, exponential(correlation)) * length));
+			for(int i=0; i<shared; i++) {
+				int itm = previous[random.nextInt(previous.length)];
+				if(!items.contains(itm))
+					items.add(itm);
+			}
+			while(items.size() < length) {
+				int itm = pick(itemWeights);
+				if(!items.contains(itm))
+					items.add(itm);
+			}
+			patterns[p] = items.stream().mapToInt(Integer::intValue).toArray();
+			previous = patterns[p];
+			total += exponential(1.0);
+			patternWeights[p] = total;
+			corruption[p] = Math.max(0.0, Math.min(1.0, 0.5 + 0.1 * random.nextGaussian()));
+		}
+	}
+
+	private int[] nextTransaction(double avgBasket) {
+		int length = Math.min(itemWeights.length, Math.max(1, poisson(avgBasket)));
+		ArrayList<Integer> txn = new ArrayList<Integer>(length);
+		while(txn.size() < length) {
+			int[] pattern = carried;
+			carried = null;
+			if(pattern == null)
+				pattern = corrupt(pick(patternWeights));
+			boolean fits = txn.size() + pattern.length <= length;
+			if(!fits && !txn.isEmpty() && random.nextBoolean()) {
+				carried = pattern;
+				break;
+			}
+			for(int itm : pattern) {
+				if(!txn.contains(itm))
+					txn.add(itm);
+			}
+			if(!fits)
+				break;
+		}
+		int[] result = txn.stream().mapToInt(Integer::intValue).toArray();
+		Arrays.sort(result);
+		return result;
+	}
+
+	// Items of the pattern left after dropping random ones while a draw stays below the corruption level of the pattern
+
+	private int[] corrupt(int p) {
+		int[] items = patterns[p].clone();
+		int n = items.length;
+		while(n > 0 && random.nextDouble() < corruption[p]) {
+			int i = random.nextInt(n);
+			items[i] = items[--n];
+		}
+		return Arrays.copyOf(items, n);
+	}
+
+	// Index drawn with probability proportional to it's share of the cumulative weights
+
+	private int pick(double[] cumulative) {
+		int pos = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length-1]);
+		return pos >= 0 ? pos : Math.min(cumulative.length-1, -pos-1);
+	}
+
+	private double exponential(double mean) {
+		return -mean * Math.log(1.0 - random.nextDouble());
+	}
+
+	private int poisson(double mean) {
+		if(mean > 500) // exp(-mean) underflows, the normal approximation is close enough
+			return (int)Math.round(mean + Math.sqrt(mean) * random.nextGaussian());
+		double limit = Math.exp(-mean), product = random.nextDouble();
+		int k = 0;
+		while(product > limit) {
+			product *= random.nextDouble();
+			k++;
+		}
+		return k;
+	}
+}
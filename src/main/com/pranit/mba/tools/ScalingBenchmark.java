@@ -0,0 +1,91 @@
+package com.pranit.mba.tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import com.pranit.mba.JobStats;
+import com.pranit.mba.MbaDriver;
+
+/*
+ * Scaling benchmark - run the whole pipeline on synthetic data-sets of increasing size with the local job runner,
+ * where every Job runs in this single process, and record the cost of every Job.
+ * For each transaction count a data-set is generated by the QuestGenerator (same -D mba.quest.* options) into
+ * <work dir>/data/quest-D<count>.txt, and then mined by every engine given into <work dir>/out/<engine>-D<count>.
+ * Other -D options are passed on to the Driver. Every Job adds a line to <work dir>/scaling-report.tsv:
+ * engine, transactions, Job name, wall time in ms, bytes shuffled to the Reducers and peak heap in bytes,
+ * followed by a TOTAL line for the whole run, whose peak heap also covers the work done in the Driver between Jobs.
+ */
+
+public class ScalingBenchmark extends Configured implements Tool {
+
+	private final static String USAGE = "USAGE %s: <work dir path> <transaction counts, comma separated> <min. support> <min. confidence> <max no. of passes> [mining engines, comma separated]\n";
+
+	public static void main(String[] args) throws Exception {
+		int exitCode = ToolRunner.run(new ScalingBenchmark(), args);
+		System.exit(exitCode);
+	}
+
+	@Override
+	public int run(String[] args) throws Exception {
+		if(args.length < 5) {
+			System.err.printf("Invalid arguments!\n"+USAGE, getClass().getName());
+			ToolRunner.printGenericCommandUsage(System.err);
+			return 1;
+		}
+		// The Driver configures it's Jobs from the default configuration, which must select the local job runner
+		if(!new Configuration().get("mapreduce.framework.name", "local").equals("local")) {
+			System.err.println("Scaling benchmark runs on the local job runner, run it without a cluster configuration on the classpath");
+			return 1;
+		}
+		FileSystem fs = FileSystem.get(getConf());
+		String workDir = fs.makeQualified(new Path(args[0])).toUri().getPath(); // The Driver takes paths without the scheme
+		String[] counts = args[1].split(",");
+		String[] engines = (args.length > 5) ? args[5].split(",") : new String[] { "apriori" };
+		String delimiter = getConf().get("mba.quest.delimiter", ",");
+
+		BufferedWriter report = new BufferedWriter(new OutputStreamWriter(fs.create(new Path(workDir, "scaling-report.tsv"), true)));
+		report.write("engine\ttransactions\tjob\twall_ms\tshuffle_bytes\tpeak_heap_bytes\n");
+		for(String count : counts) {
+			String dataset = workDir + "/data/quest-D" + count + ".txt";
+			System.out.println("Generating "+count+" transactions into "+dataset);
+			int exitCode = ToolRunner.run(new Configuration(getConf()), new QuestGenerator(), new String[] { dataset, count });
+			if(exitCode != 0)
+				return exitCode;
+			for(String engine : engines) {
+				String outputDir = workDir + "/out/" + engine + "-D" + count;
+				fs.delete(new Path(outputDir), true);
+				MbaDriver driver = new MbaDriver();
+				driver.setConf(new Configuration(getConf()));
+				JobStats.resetPeakHeap();
+				long start = System.currentTimeMillis();
+				exitCode = driver.run(new String[] { dataset, outputDir, args[2], args[3], count, delimiter, args[4], "0", engine });
+				long wallMillis = System.currentTimeMillis() - start;
+				if(exitCode != 0)
+					return exitCode;
+				long shuffleBytes = 0;
+				for(JobStats stats : driver.getJobStats()) {
+					writeLine(report, engine, count, stats.getName(), stats.getWallMillis(), stats.getShuffleBytes(), stats.getPeakHeapBytes());
+					shuffleBytes += stats.getShuffleBytes();
+				}
+				writeLine(report, engine, count, "TOTAL", wallMillis, shuffleBytes, driver.getPeakHeapBytes());
+				report.flush();
+			}
+		}
+		report.close();
+		return 0;
+	}
+
+	private void writeLine(BufferedWriter report, String engine, String count, String job, long wallMillis, long shuffleBytes, long peakHeapBytes) throws IOException {
+		String line = engine+"\t"+count+"\t"+job+"\t"+wallMillis+"\t"+shuffleBytes+"\t"+peakHeapBytes;
+		System.out.println(line);
+		report.write(line+"\n");
+	}
+}
@@ -1,38 +1,36 @@
 package com.pranit.mba.utils;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.StringTokenizer;
+
+import com.pranit.mba.io.ItemsetLevel;
+import com.pranit.mba.io.ItemsetWritable;
 
 /* 
  * Apriori Algorithm - Java Implementation of Apriori to serve as helper class for MapReduce jobs
  * Generate and Prune till we get all the valid frequent item-sets for the input dataset,
  * which we can use to build the Association Rules for analysis.
+ * Item-sets are sorted arrays of item IDs assigned by the ItemDictionary.
  * 
- * This implementation uses Object Serialization to persist the data stored in the variables
- * and data-structures in between multiple MapReduce jobs and tasks.
- * State of the current object is saved in the Local File System and when needed is retrieved 
- * from Local FS to load the current object with previously the saved values.  
+ * The frequent item-sets found in each Pass are passed from the Reducers to the Driver as the parts of one level
+ * of the AprioriStateStore, and the Candidates generated from them are shipped to the Mappers of the next Pass.
  */
 
-public class AprioriAlgorithm implements Serializable {
-	
-	private static final long serialVersionUID = -6881613323741098535L;	
+public class AprioriAlgorithm {
 	
 	// Store <itemset, count> pair for all frequent item-sets
-	private HashMap<String, Integer> map = new HashMap<String, Integer>();
+	private HashMap<ItemsetWritable, Integer> map = new HashMap<ItemsetWritable, Integer>();
 	// Store the list of Candidate item-sets first and then the Frequent item-sets for current Pass 
-	private ArrayList<String> list = new ArrayList<String>();
+	private ArrayList<int[]> list = new ArrayList<int[]>();
 	private int minSupportCount; // Store the threshold Support Count
 	private int maxPass; // Store the maximum number of Passes
 	private int curPass = 1; // Store the current Pass
+	private int joinedCount; // Item-sets joined by the last Candidate generation, before pruning by their subsets
 	
 	// Build the initial list with frequent items from Pass 1
-	public void buildItemsList(ArrayList<String> freqItemsPass1) {
-		list = new ArrayList<String>(freqItemsPass1);
+	public void buildItemsList(ArrayList<int[]> freqItemsPass1) {
+		list = new ArrayList<int[]>(freqItemsPass1);
 	}
 	
 	// Set the minimum Support Count that each frequent item-set should satisfy
@@ -41,6 +39,10 @@ public class AprioriAlgorithm implements Serializable {
 		minSupportCount = supportCount;
 	}
 	
+	public int getMinSupportCount() {
+		return minSupportCount;
+	}
+	
 	/*
 	 * Set the maximum number of pass for which the Algorithm will run and then terminate
 	 * if it doesn't converge within this specified number of maximum passes.
@@ -52,7 +54,7 @@ public class AprioriAlgorithm implements Serializable {
 	
 	// Return all Frequent list of item-sets and it's corresponding Support Counts
 	
-	public HashMap<String, Integer> getFrequentItemsets() {
+	public HashMap<ItemsetWritable, Integer> getFrequentItemsets() {
 		return map;
 	}
 	
@@ -70,14 +72,14 @@ public class AprioriAlgorithm implements Serializable {
 	
 	// Store in Map <itemset, count> pair
 	
-	public void mapPut(String key, int value) {
-		map.put(key, value);
+	public void mapPut(int[] key, int value) {
+		map.put(new ItemsetWritable(key), value);
 	}
 	
 	// Retrieve from Map the value of <count> for the corresponding <itemset> key
 	
-	public Integer mapGet(String key) {
-		return map.get(key);
+	public Integer mapGet(int[] key) {
+		return map.get(new ItemsetWritable(key));
 	}
 	
 	/*
@@ -90,9 +92,18 @@ public class AprioriAlgorithm implements Serializable {
 		return curPass > maxPass || (curPass > 1 && list.size() <= 1); 
 	}
 	
+	/*
+	 * Number of item-sets joined by the last Candidate generation.
+	 * Those not among the Candidates returned had an infrequent subset and were pruned.
+	 */
+	
+	public int getJoinedCount() {
+		return joinedCount;
+	}
+	
 	// Return Candidate list of item-sets for next Pass
 	
-	public ArrayList<String> getNextCandidateItemsets() {
+	public ArrayList<int[]> getNextCandidateItemsets() {
 		generateNextCandidateItemsets();
 		return list;
 	}
@@ -100,76 +111,81 @@ public class AprioriAlgorithm implements Serializable {
 	/*
 	 * Generate list of Candidate item-sets of size K from list Frequent item-sets of size K-1
 	 * Frequent list of previous pass is used to generate Candidate list of current pass.
+	 * 
+	 * Frequent item-sets are sorted lexicographically so that the item-sets sharing the same first K-2 items
+	 * form one contiguous block, and only pairs within a block are joined.
+	 * A joined Candidate is kept only if all of it's subsets of size K-1 are frequent (downward closure),
+	 * since any item-set with an infrequent subset can never be frequent itself.
 	 */
 	
 	private void generateNextCandidateItemsets() {
-		ArrayList<String> temp = new ArrayList<String>();
-		HashSet<String> set = new HashSet<String>();		
-		for(String itemset1 : list) {
-			for(String itemset2:list) {
-				if(itemset1.equals(itemset2))
-					continue;
-				String newItemset = union(itemset1, itemset2, set);
-				if(newItemset == null)
-					continue;
-				if(temp.contains(newItemset))
-					continue;
-				temp.add(newItemset);
+		HashSet<ItemsetWritable> frequent = new HashSet<ItemsetWritable>(); // Also drops any duplicate item-sets
+		for(int[] itemset : list)
+			frequent.add(new ItemsetWritable(itemset));
+		ArrayList<int[]> sorted = new ArrayList<int[]>(frequent.size());
+		for(ItemsetWritable itemset : frequent)
+			sorted.add(itemset.get());
+		sorted.sort(Itemsets::compare);
+		
+		ArrayList<int[]> temp = new ArrayList<int[]>();
+		joinedCount = 0;
+		int blockStart = 0;
+		while(blockStart < sorted.size()) {
+			int blockEnd = blockStart + 1;
+			while(blockEnd < sorted.size() && sharesPrefix(sorted.get(blockStart), sorted.get(blockEnd)))
+				blockEnd++;
+			for(int i=blockStart; i<blockEnd; i++) {
+				for(int j=i+1; j<blockEnd; j++) {
+					int[] newItemset = Itemsets.join(sorted.get(i), sorted.get(j));
+					joinedCount++;
+					if(hasInfrequentSubset(newItemset, frequent))
+						continue;
+					temp.add(newItemset);
+				}
 			}
+			blockStart = blockEnd;
 		}
-		list = new ArrayList<String>(temp); // Update the current list of item-sets
+		list = temp; // Update the current list of item-sets
+	}
+	
+	// Check whether both item-sets of the same size match in all but their last item
+	
+	private boolean sharesPrefix(int[] itemset1, int[] itemset2) {
+		for(int i=0; i<itemset1.length-1; i++) {
+			if(itemset1[i] != itemset2[i])
+				return false;
+		}
+		return true;
 	}
 	
 	/*
-	 *  Build larger item-sets of size K from two small item-sets, each of size K-1
-	 *  Two small item-sets must differ from each other by only element
+	 * Check the subsets of size K-1 of a Candidate against the frequent item-sets of the previous pass.
+	 * The two subsets obtained by dropping either of the last two items are the joined item-sets themselves,
+	 * so only the subsets dropping one of the first K-2 items need to be looked up.
 	 */
 	
-	private String union(String itemset1, String itemset2, HashSet<String> set) {
-		StringTokenizer is1 = new StringTokenizer(itemset1,",");
-		StringTokenizer is2 = new StringTokenizer(itemset2,",");
-		int cnt = is1.countTokens();
-		int i = 1;
-		while(is1.hasMoreTokens() && is2.hasMoreTokens()) {
-			String item1 = is1.nextToken();
-			String item2 = is2.nextToken();
-			if(item1.equals(item2) && i<cnt) { // Matches till the last element of both item-sets 
-				set.add(item1);
-				i++;
-				continue;
-			}
-			if(i < cnt) { // Mismatch before the last element of both item-sets; Discard
-				set.clear();
-				return null;
-			}
-			// Mismatch at the last element of both item-sets; Add both elements
-			set.add(item1);
-			set.add(item2);
-		}
-		Iterator<String> itr = set.iterator();
-		StringBuilder result = new StringBuilder(); // Build the resultant item-set separated by comma
-		while(itr.hasNext()) {
-			result.append(itr.next());
-			result.append(",");		
+	private boolean hasInfrequentSubset(int[] candidate, HashSet<ItemsetWritable> frequent) {
+		ItemsetWritable subset = new ItemsetWritable();
+		for(int i=0; i<candidate.length-2; i++) {
+			subset.set(Itemsets.without(candidate, i));
+			if(!frequent.contains(subset))
+				return true;
 		}
-		set.clear();
-		return result.toString().replaceAll(",$", "");
-	}
-	
-	// Build the Frequent list of item-sets for next Pass from Candidate list of current Pass
-	
-	public void nextFrequentItemsets() {
-		ArrayList<String> temp = new ArrayList<String>();
-		for(String itemset : list) {		
-			Integer val = (Integer)map.get(itemset);
-			// This item-set generated is not found in the transaction data-set so discard it
-			if(val == null)
-				continue;
-			// Prune by Support Count threshold to extract frequent item-sets only
-			if(val < minSupportCount)
-				continue;
+		return false;
+	}
+	
+	/*
+	 * Store the Frequent item-sets found in a Pass along with their Support Counts
+	 * and make them the Frequent list of item-sets for the next Pass.
+	 */
+	
+	public void addFrequentItemsets(ItemsetLevel level) {
+		ArrayList<int[]> temp = new ArrayList<int[]>(level.size());
+		for(int i=0; i<level.size(); i++) {
+			int[] itemset = level.get(i);
+			mapPut(itemset, level.getCount(i));
 			temp.add(itemset);
 		}
-		list = new ArrayList<String>(temp); // Update the current list of item-sets
+		list = temp; // Update the current list of item-sets
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package com.pranit.mba.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * Prefix Trie of the Candidate item-sets of a Pass, all of the same size K.
+ * Each level of the Trie holds one position of the sorted item-sets, so a path from the root to a leaf
+ * spells out one Candidate and the leaf stores the index of that Candidate.
+ * 
+ * Counting walks only those K-subsets of a transaction that are a prefix of some Candidate,
+ * instead of testing every Candidate against every transaction.
+ */
+
+public class CandidateTrie {
+	
+	private static final class Node {
+		private int[] keys = Itemsets.EMPTY; // Sorted item IDs of the children
+		private Node[] children = new Node[0];
+		private int size; // Number of children in use
+		private int candidate = -1; // Index of the Candidate ending at this node, for leaves only
+	}
+	
+	private Node root = new Node();
+	private ArrayList<int[]> candidates = new ArrayList<int[]>();
+	private int k = -1;
+	
+	public CandidateTrie() {
+	}
+	
+	public CandidateTrie(Iterable<int[]> itemsets) {
+		for(int[] itemset : itemsets)
+			add(itemset);
+	}
+	
+	// Insert a Candidate item-set, all item-sets added must be of the same size
+	
+	public void add(int[] itemset) {
+		if(k < 0)
+			k = itemset.length;
+		else if(itemset.length != k)
+			throw new IllegalArgumentException("Candidate of size "+itemset.length+" added to a Trie of size "+k);
+		Node node = root;
+		for(int item : itemset) {
+			int pos = Arrays.binarySearch(node.keys, 0, node.size, item);
+			if(pos < 0) {
+				pos = -pos - 1;
+				if(node.size == node.keys.length) {
+					int capacity = Math.max(4, node.size*2);
+					node.keys = Arrays.copyOf(node.keys, capacity);
+					node.children = Arrays.copyOf(node.children, capacity);
+				}
+				System.arraycopy(node.keys, pos, node.keys, pos+1, node.size-pos);
+				System.arraycopy(node.children, pos, node.children, pos+1, node.size-pos);
+				node.keys[pos] = item;
+				node.children[pos] = new Node();
+				node.size++;
+			}
+			node = node.children[pos];
+		}
+		if(node.candidate < 0) { // Ignore duplicate Candidates
+			node.candidate = candidates.size();
+			candidates.add(itemset);
+		}
+	}
+	
+	// Number of distinct Candidates in the Trie
+	
+	public int size() {
+		return candidates.size();
+	}
+	
+	// Return the Candidate item-set for the index stored in the Trie
+	
+	public int[] get(int index) {
+		return candidates.get(index);
+	}
+	
+	/*
+	 * Find all the Candidates contained in the sorted transaction and store their indices in hits,
+	 * which must be large enough to hold size() entries. Returns the number of Candidates found.
+	 */
+	
+	public int match(int[] txn, int[] hits) {
+		if(k <= 0 || txn.length < k)
+			return 0;
+		return match(root, txn, 0, 0, hits, 0);
+	}
+	
+	private int match(Node node, int[] txn, int start, int depth, int[] hits, int n) {
+		if(depth == k) {
+			hits[n++] = node.candidate;
+			return n;
+		}
+		// Leave enough items in the transaction to complete a Candidate of size K
+		int end = txn.length - (k - depth - 1);
+		if(node.size < end - start) { // Fewer children than items left; search the transaction for each child
+			int i = start;
+			for(int c=0; c<node.size && i<end; c++) {
+				int item = node.keys[c];
+				while(i < end && txn[i] < item)
+					i++;
+				if(i < end && txn[i] == item) {
+					n = match(node.children[c], txn, i+1, depth+1, hits, n);
+					i++;
+				}
+			}
+		}
+		else { // Fewer items left than children; search the children for each item
+			for(int i=start; i<end; i++) {
+				int pos = Arrays.binarySearch(node.keys, 0, node.size, txn[i]);
+				if(pos >= 0)
+					n = match(node.children[pos], txn, i+1, depth+1, hits, n);
+			}
+		}
+		return n;
+	}
+}
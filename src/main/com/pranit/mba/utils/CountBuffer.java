@@ -0,0 +1,77 @@
+package com.pranit.mba.utils;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/*
+ * Bounded in-memory table of counts keyed by non negative int, used by Mappers for in-mapper combining.
+ * Open addressing over two primitive arrays, so counting a key never creates an object.
+ * The table is sized once from a memory budget; when it is full the caller flushes the partial sums and counting carries on.
+ */
+
+public class CountBuffer {
+
+	// Receives each key with it's partial count when the buffer is flushed
+
+	public interface Sink {
+		void write(int key, int count) throws IOException, InterruptedException;
+	}
+
+	private static final int FREE = -1;
+
+	private int[] keys;
+	private int[] counts;
+	private int mask;
+	private int shift; // Multiplicative hashing takes the top bits of the product
+	private int size;
+	private int maxSize; // Flush at half the slots in use to keep probe sequences short
+
+	// Largest table whose two arrays fit in budgetBytes, at least 16 slots
+
+	public CountBuffer(long budgetBytes) {
+		int slots = Integer.highestOneBit((int)Math.min(1 << 30, Math.max(16, budgetBytes / 8)));
+		keys = new int[slots];
+		counts = new int[slots];
+		Arrays.fill(keys, FREE);
+		mask = slots - 1;
+		shift = 32 - Integer.numberOfTrailingZeros(slots);
+		maxSize = slots / 2;
+	}
+
+	// Smallest budget for a table which holds this many distinct keys without flushing
+
+	public static long bytesFor(int keys) {
+		return 16L * Long.highestOneBit(2L * Math.max(1, keys)); // Twice the slots of a power of two above keys
+	}
+
+	// Add count to key, returns true if the buffer is now full and must be flushed
+
+	public boolean add(int key, int count) {
+		int slot = (key * 0x9E3779B9) >>> shift;
+		while(keys[slot] != FREE && keys[slot] != key)
+			slot = (slot + 1) & mask;
+		if(keys[slot] == FREE) {
+			keys[slot] = key;
+			size++;
+		}
+		counts[slot] += count;
+		return size >= maxSize;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// Write every key with it's count to the sink and empty the buffer
+
+	public void flush(Sink sink) throws IOException, InterruptedException {
+		for(int slot=0; slot<keys.length; slot++) {
+			if(keys[slot] == FREE)
+				continue;
+			sink.write(keys[slot], counts[slot]);
+			keys[slot] = FREE;
+			counts[slot] = 0;
+		}
+		size = 0;
+	}
+}
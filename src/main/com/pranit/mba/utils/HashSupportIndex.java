@@ -0,0 +1,113 @@
+package com.pranit.mba.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/*
+ * In-memory index of the Support Counts of all frequent item-sets, built incrementally.
+ * Item-sets are stored back to back in one int array and found through an open addressing table
+ * of entry numbers, so a lookup hashes and compares the IDs in place without creating any object.
+ */
+
+public class HashSupportIndex implements SupportIndex {
+
+	private int[] items = new int[64]; // Item IDs of all item-sets back to back
+	private int[] offsets = new int[17]; // Item-set e is items[offsets[e]] to items[offsets[e+1]-1]
+	private int[] counts = new int[16];
+	private int[] table = new int[32]; // Entry number + 1 of the item-set hashed to each slot, 0 if free
+	private int size;
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// Add an item-set with it's Support Count, replacing the count if the item-set is already present
+
+	public void put(int[] itemset, int count) {
+		int slot = find(itemset);
+		if(table[slot] != 0) {
+			counts[table[slot]-1] = count;
+			return;
+		}
+		if(size == counts.length) {
+			counts = Arrays.copyOf(counts, size*2);
+			offsets = Arrays.copyOf(offsets, size*2+1);
+		}
+		int start = offsets[size];
+		if(start + itemset.length > items.length)
+			items = Arrays.copyOf(items, Math.max(items.length*2, start + itemset.length));
+		System.arraycopy(itemset, 0, items, start, itemset.length);
+		offsets[size+1] = start + itemset.length;
+		counts[size] = count;
+		table[slot] = ++size;
+		if(size*2 > table.length)
+			rehash();
+	}
+
+	@Override
+	public int get(int[] itemset) {
+		int entry = table[find(itemset)];
+		return entry == 0 ? -1 : counts[entry-1];
+	}
+
+	// Slot holding the item-set, or the free slot where it would be inserted
+
+	private int find(int[] itemset) {
+		int mask = table.length - 1;
+		int slot = hash(itemset, 0, itemset.length) & mask;
+		while(table[slot] != 0 && !matches(table[slot]-1, itemset))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private boolean matches(int entry, int[] itemset) {
+		int start = offsets[entry];
+		if(offsets[entry+1] - start != itemset.length)
+			return false;
+		for(int i=0; i<itemset.length; i++) {
+			if(items[start+i] != itemset[i])
+				return false;
+		}
+		return true;
+	}
+
+	private static int hash(int[] data, int from, int to) {
+		int h = 1;
+		for(int i=from; i<to; i++)
+			h = 31 * h + data[i];
+		return h * 0x9E3779B9 ^ (h >>> 16);
+	}
+
+	private void rehash() {
+		table = new int[table.length*2];
+		int mask = table.length - 1;
+		for(int e=0; e<size; e++) {
+			int slot = hash(items, offsets[e], offsets[e+1]) & mask;
+			while(table[slot] != 0)
+				slot = (slot + 1) & mask;
+			table[slot] = e + 1;
+		}
+	}
+
+	// Read the list of all frequent item-sets written by the Driver as <itemset, count> pairs
+
+	public static HashSupportIndex read(Configuration conf, String filePath) throws IOException {
+		HashSupportIndex index = new HashSupportIndex();
+		FileSystem hdfs = FileSystem.get(conf);
+		BufferedReader in = new BufferedReader(new InputStreamReader(hdfs.open(new Path(filePath))));
+		String line = null;
+		while((line = in.readLine()) != null && line.length() > 0) {
+			int tab = line.lastIndexOf('\t');
+			index.put(Itemsets.parse(line.substring(0, tab)), Integer.parseInt(line.substring(tab+1)));
+		}
+		in.close();
+		return index;
+	}
+}
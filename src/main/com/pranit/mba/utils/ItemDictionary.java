@@ -0,0 +1,166 @@
+package com.pranit.mba.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/*
+ * Dictionary of frequent items built from the output of Pass 0.
+ * Each frequent item is assigned a dense integer ID ordered by descending Support Count,
+ * so ID 0 is the most frequent item. Items are encoded into these IDs when a transaction is read
+ * and only decoded back to item names when the final output is written.
+ * 
+ * The dictionary is stored in HDFS as <item, count> pairs, one per line, in order of ID.
+ */
+
+public class ItemDictionary {
+	
+	private HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	private String[] names;
+	private int[] counts;
+	
+	private ItemDictionary(String[] names, int[] counts) {
+		this.names = names;
+		this.counts = counts;
+		for(int i=0; i<names.length; i++)
+			ids.put(names[i], i);
+	}
+	
+	// Build the dictionary from <item, count> pairs of frequent items; sorted by count first and then by name
+	
+	public static ItemDictionary build(Map<String, Integer> itemCounts) {
+		ArrayList<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(itemCounts.entrySet());
+		entries.sort((e1, e2) -> {
+			int c = (-1) * e1.getValue().compareTo(e2.getValue());
+			return c != 0 ? c : e1.getKey().compareTo(e2.getKey());
+		});
+		String[] names = new String[entries.size()];
+		int[] counts = new int[entries.size()];
+		for(int i=0; i<names.length; i++) {
+			names[i] = entries.get(i).getKey();
+			counts[i] = entries.get(i).getValue();
+		}
+		return new ItemDictionary(names, counts);
+	}
+	
+	// Number of items in the dictionary
+	
+	public int size() {
+		return names.length;
+	}
+	
+	// Return ID of the item or -1 if the item is not frequent
+	
+	public int getId(String item) {
+		Integer id = ids.get(item);
+		return id == null ? -1 : id;
+	}
+	
+	public String getName(int id) {
+		return names[id];
+	}
+	
+	// Support Count of the single item
+	
+	public int getCount(int id) {
+		return counts[id];
+	}
+	
+	/*
+	 * Encode a raw transaction into a sorted item-set of distinct IDs.
+	 * Items not found in the dictionary are infrequent and can never be part of a frequent item-set, so they are dropped.
+	 */
+	
+	public int[] encode(String txn, String delimiter) {
+		StringTokenizer items = new StringTokenizer(txn, delimiter);
+		int[] buffer = new int[items.countTokens()];
+		int n = 0;
+		while(items.hasMoreTokens()) {
+			int id = getId(normalize(items.nextToken()));
+			if(id >= 0)
+				buffer[n++] = id;
+		}
+		return Itemsets.sortedDistinct(buffer, n);
+	}
+	
+	// Decode the item-set of IDs into comma separated item names
+	
+	public String decode(int[] itemset) {
+		StringBuilder result = new StringBuilder();
+		for(int i=0; i<itemset.length; i++) {
+			if(i > 0)
+				result.append(',');
+			result.append(names[itemset[i]]);
+		}
+		return result.toString();
+	}
+	
+	/*
+	 * Trim the item and collapse multiple spaces within it into one.
+	 * Most items are already clean and are returned as is without building a new String.
+	 */
+	
+	public static String normalize(String item) {
+		int len = item.length();
+		boolean clean = len > 0 && item.charAt(0) > ' ' && item.charAt(len-1) > ' ';
+		for(int i=1; clean && i<len; i++) {
+			if(item.charAt(i) == ' ' && item.charAt(i-1) == ' ')
+				clean = false;
+		}
+		if(clean)
+			return item;
+		item = item.trim();
+		StringBuilder result = new StringBuilder(item.length());
+		for(int i=0; i<item.length(); i++) {
+			char c = item.charAt(i);
+			if(c == ' ' && result.length() > 0 && result.charAt(result.length()-1) == ' ')
+				continue;
+			result.append(c);
+		}
+		return result.toString();
+	}
+	
+	// Return <item, count> pairs in order of ID
+	
+	public LinkedHashMap<String, Integer> toMap() {
+		LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>();
+		for(int i=0; i<names.length; i++)
+			map.put(names[i], counts[i]);
+		return map;
+	}
+	
+	// Write the dictionary to HDFS as <item, count> pairs in order of ID
+	
+	public void write(Configuration conf, String filePath) throws IOException {
+		new Utilities().addFileToHDFS(conf, filePath, toMap());
+	}
+	
+	// Read the dictionary written by write() from HDFS
+	
+	public static ItemDictionary read(Configuration conf, String filePath) throws IOException {
+		ArrayList<String> names = new ArrayList<String>();
+		int[] counts = new int[16];
+		FileSystem hdfs = FileSystem.get(conf);
+		BufferedReader in = new BufferedReader(new InputStreamReader(hdfs.open(new Path(filePath))));
+		String line = null;
+		while((line = in.readLine()) != null && line.length() > 0) {
+			int tab = line.lastIndexOf('\t');
+			if(names.size() == counts.length)
+				counts = Arrays.copyOf(counts, counts.length*2);
+			counts[names.size()] = Integer.parseInt(line.substring(tab+1));
+			names.add(line.substring(0, tab));
+		}
+		in.close();
+		return new ItemDictionary(names.toArray(new String[names.size()]), Arrays.copyOf(counts, names.size()));
+	}
+}
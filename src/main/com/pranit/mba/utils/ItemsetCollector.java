@@ -0,0 +1,10 @@
+package com.pranit.mba.utils;
+
+import java.io.IOException;
+
+// Receives each frequent item-set, sorted by item ID, along with it's Support Count as an in-memory miner finds it
+
+public interface ItemsetCollector {
+	
+	void collect(int[] itemset, int count) throws IOException, InterruptedException;
+}
@@ -0,0 +1,142 @@
+package com.pranit.mba.utils;
+
+import java.util.Arrays;
+
+/*
+ * Helper methods for item-sets encoded as sorted arrays of dense item IDs.
+ * Every item-set handled by the jobs is kept sorted in ascending order of item ID
+ * so that subset tests, joins and comparisons can be done with a single linear merge.
+ */
+
+public final class Itemsets {
+	
+	public static final int[] EMPTY = new int[0];
+	
+	private Itemsets() {
+	}
+	
+	// Lexicographic comparison of two sorted item-sets, a shorter prefix sorts first
+	
+	public static int compare(int[] a, int[] b) {
+		int n = Math.min(a.length, b.length);
+		for(int i=0; i<n; i++) {
+			if(a[i] != b[i])
+				return a[i] < b[i] ? -1 : 1;
+		}
+		return a.length - b.length;
+	}
+	
+	// containsAll(txn, itemset) returns true if every item of itemset occurs in txn; both must be sorted
+	
+	public static boolean containsAll(int[] txn, int[] itemset) {
+		if(itemset.length > txn.length)
+			return false;
+		int i = 0;
+		for(int item : itemset) {
+			while(i < txn.length && txn[i] < item)
+				i++;
+			if(i == txn.length || txn[i] != item)
+				return false;
+			i++;
+		}
+		return true;
+	}
+	
+	/*
+	 * Join two item-sets of size K-1 which share the same first K-2 items into an item-set of size K.
+	 * Returns null if both item-sets differ anywhere before their last element.
+	 */
+	
+	public static int[] join(int[] itemset1, int[] itemset2) {
+		int k = itemset1.length;
+		if(k != itemset2.length || k == 0)
+			return null;
+		for(int i=0; i<k-1; i++) {
+			if(itemset1[i] != itemset2[i])
+				return null;
+		}
+		int last1 = itemset1[k-1], last2 = itemset2[k-1];
+		if(last1 == last2)
+			return null;
+		int[] result = Arrays.copyOf(itemset1, k+1);
+		result[k-1] = Math.min(last1, last2);
+		result[k] = Math.max(last1, last2);
+		return result;
+	}
+	
+	// Return the item-set with the item at the given index removed
+	
+	public static int[] without(int[] itemset, int index) {
+		int[] result = new int[itemset.length-1];
+		System.arraycopy(itemset, 0, result, 0, index);
+		System.arraycopy(itemset, index+1, result, index, itemset.length-index-1);
+		return result;
+	}
+	
+	// Return the items of itemset which are not part of subset; both must be sorted
+	
+	public static int[] minus(int[] itemset, int[] subset) {
+		int[] result = new int[itemset.length];
+		int n = 0, j = 0;
+		for(int item : itemset) {
+			while(j < subset.length && subset[j] < item)
+				j++;
+			if(j < subset.length && subset[j] == item)
+				continue;
+			result[n++] = item;
+		}
+		return n == result.length ? result : Arrays.copyOf(result, n);
+	}
+	
+	// Sort the given buffer of item IDs and drop duplicates, returning a new array of the distinct items
+	
+	public static int[] sortedDistinct(int[] buffer, int length) {
+		if(length == 0)
+			return EMPTY;
+		Arrays.sort(buffer, 0, length);
+		int n = 1;
+		for(int i=1; i<length; i++) {
+			if(buffer[i] != buffer[n-1])
+				buffer[n++] = buffer[i];
+		}
+		return Arrays.copyOf(buffer, n);
+	}
+	
+	// Comma separated representation of the item IDs, e.g. 3,17,42
+	
+	public static String toString(int[] itemset) {
+		StringBuilder result = new StringBuilder();
+		for(int i=0; i<itemset.length; i++) {
+			if(i > 0)
+				result.append(',');
+			result.append(itemset[i]);
+		}
+		return result.toString();
+	}
+	
+	// Parse the comma separated representation produced by toString() back into an item-set
+	
+	public static int[] parse(String itemset) {
+		itemset = itemset.trim();
+		if(itemset.isEmpty())
+			return EMPTY;
+		int n = 1;
+		for(int i=0; i<itemset.length(); i++) {
+			if(itemset.charAt(i) == ',')
+				n++;
+		}
+		int[] result = new int[n];
+		int value = 0, j = 0;
+		for(int i=0; i<itemset.length(); i++) {
+			char c = itemset.charAt(i);
+			if(c == ',') {
+				result[j++] = value;
+				value = 0;
+			}
+			else if(c != ' ')
+				value = value*10 + (c - '0');
+		}
+		result[j] = value;
+		return result;
+	}
+}
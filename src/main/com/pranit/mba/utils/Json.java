@@ -0,0 +1,80 @@
+package com.pranit.mba.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+// Minimal JSON writer for Maps, Lists, Numbers, Booleans and Strings, which is all the reports and responses hold
+
+public final class Json {
+
+	private Json() {
+	}
+
+	// Value written on a single line
+
+	public static String toString(Object value) {
+		StringBuilder json = new StringBuilder();
+		append(json, value, null);
+		return json.toString();
+	}
+
+	/*
+	 * Append the value to the builder. With an indent every member of an object or array is written on a line
+	 * of it's own, indented one level deeper, so the output also reads well as text; with a null indent all on one line.
+	 */
+
+	public static void append(StringBuilder json, Object value, String indent) {
+		if(value instanceof Map || value instanceof List) {
+			boolean object = value instanceof Map;
+			String inner = indent == null ? null : indent + "  ";
+			json.append(object ? '{' : '[');
+			boolean first = true;
+			for(Object element : object ? ((Map<?, ?>)value).entrySet() : (List<?>)value) {
+				if(!first)
+					json.append(',');
+				if(inner != null)
+					json.append('\n').append(inner);
+				first = false;
+				if(object) {
+					Entry<?, ?> pair = (Entry<?, ?>)element;
+					appendString(json, pair.getKey().toString());
+					json.append(inner == null ? ":" : ": ");
+					element = pair.getValue();
+				}
+				append(json, element, inner);
+			}
+			if(indent != null && !first)
+				json.append('\n').append(indent);
+			json.append(object ? '}' : ']');
+		}
+		else if(value instanceof Double || value instanceof Float) {
+			double d = ((Number)value).doubleValue();
+			json.append(Double.isNaN(d) || Double.isInfinite(d) ? "null" : value.toString());
+		}
+		else if(value instanceof Number || value instanceof Boolean)
+			json.append(value);
+		else if(value == null)
+			json.append("null");
+		else
+			appendString(json, value.toString());
+	}
+
+	public static void appendString(StringBuilder json, String s) {
+		json.append('"');
+		for(int i=0; i<s.length(); i++) {
+			char c = s.charAt(i);
+			if(c == '"' || c == '\\')
+				json.append('\\').append(c);
+			else if(c == '\n')
+				json.append("\\n");
+			else if(c == '\t')
+				json.append("\\t");
+			else if(c < ' ')
+				json.append(String.format("\\u%04x", (int)c));
+			else
+				json.append(c);
+		}
+		json.append('"');
+	}
+}
@@ -0,0 +1,14 @@
+package com.pranit.mba.utils;
+
+// Read only lookup of the Support Counts of all frequent item-sets by the sorted item IDs of an item-set
+
+public interface SupportIndex {
+	
+	// Support Count of the item-set or -1 if it is not a frequent item-set
+	
+	int get(int[] itemset);
+	
+	// Number of item-sets in the index
+	
+	int size();
+}
@@ -2,13 +2,9 @@ package com.pranit.mba.utils;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.HashMap;
@@ -16,6 +12,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
@@ -57,26 +54,22 @@ public class Utilities {
             String[] pair = line.split("\t");
             map.put(pair[0], Integer.parseInt(pair[1]));
         }
+		in.close();
 		return map;
 	}
 	
-	// Serialize the current state of AprioriAlgorithm object and save it to local File System
+	// Read <ItemSet, Count> pairs from all the part files of a Job's output directory in HDFS to Map
 	
-	public void serialize(String path, AprioriAlgorithm apriori) throws IOException {
-		ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(path, false)); // Overwrite existing file
-	    oos.writeObject(apriori);
-	    oos.close();
-	}
-	
-	// Retrieve the saved state of AprioriAlgorithm object from local File System and deserialize it
-	
-	public AprioriAlgorithm deserialize(String path) throws IOException, ClassNotFoundException {
-		AprioriAlgorithm apriori = null;
-		if(path == null)
-			return apriori;
-		ObjectInputStream ois = new ObjectInputStream(new FileInputStream(path));
-	    apriori = (AprioriAlgorithm)ois.readObject();
-	    ois.close();
-	    return apriori;
+	public HashMap<String, Integer> getDirFromHDFS(Configuration conf, String dirPath) throws IOException {
+		HashMap<String, Integer> map = new HashMap<String, Integer>();
+		FileSystem hdfs = FileSystem.get(conf);
+		if(!hdfs.exists(new Path(dirPath))) { // e.g. a named output nothing was written to
+			return map;
+		}
+		for(FileStatus status : hdfs.listStatus(new Path(dirPath))) {
+			if(status.getPath().getName().startsWith("part-"))
+				map.putAll(getFileFromHDFS(conf, status.getPath().toString()));
+		}
+		return map;
 	}
 }